@@ -1,6 +1,7 @@
 package dev.keelbismark.shoophantom;
 
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitRunnable;
 
 import dev.keelbismark.shoophantom.commands.ShooCommand;
 import dev.keelbismark.shoophantom.commands.ShooTabCompleter;
@@ -9,11 +10,20 @@ import dev.keelbismark.shoophantom.config.Messages;
 import dev.keelbismark.shoophantom.data.Database;
 import dev.keelbismark.shoophantom.data.MySQLDatabase;
 import dev.keelbismark.shoophantom.data.SQLiteDatabase;
+import dev.keelbismark.shoophantom.data.WriteBehindDatabase;
 import dev.keelbismark.shoophantom.data.WardManager;
 import dev.keelbismark.shoophantom.items.CraftingRecipes;
 import dev.keelbismark.shoophantom.listeners.*;
 import dev.keelbismark.shoophantom.mechanics.DegradationManager;
 import dev.keelbismark.shoophantom.mechanics.FuelManager;
+import dev.keelbismark.shoophantom.mechanics.PhantomRegistry;
+import dev.keelbismark.shoophantom.mechanics.QualityController;
+import dev.keelbismark.shoophantom.mechanics.StructureAuditor;
+import dev.keelbismark.shoophantom.mechanics.StructureRecheckQueue;
+import dev.keelbismark.shoophantom.mechanics.StructureStateCache;
+import dev.keelbismark.shoophantom.mechanics.StructureTemplate;
+import dev.keelbismark.shoophantom.mechanics.StructureValidator;
+import dev.keelbismark.shoophantom.mechanics.WardDisplayManager;
 import dev.keelbismark.shoophantom.tasks.*;
 
 public class ShooPhantom extends JavaPlugin {
@@ -25,6 +35,13 @@ public class ShooPhantom extends JavaPlugin {
     private WardManager wardManager;
     private FuelManager fuelManager;
     private DegradationManager degradationManager;
+    private StructureValidator structureValidator;
+    private StructureRecheckQueue structureRecheckQueue;
+    private StructureStateCache structureStateCache;
+    private StructureAuditor structureAuditor;
+    private WardDisplayManager wardDisplayManager;
+    private QualityController qualityController;
+    private PhantomRegistry phantomRegistry;
     
     @Override
     public void onEnable() {
@@ -43,6 +60,10 @@ public class ShooPhantom extends JavaPlugin {
             database = new SQLiteDatabase(this);
         }
         
+        if (configManager.isWriteBehindEnabled()) {
+            database = new WriteBehindDatabase(this, database);
+        }
+        
         if (!database.initialize()) {
             getLogger().severe("Не удалось инициализировать базу данных! Плагин отключается.");
             getServer().getPluginManager().disablePlugin(this);
@@ -53,6 +74,17 @@ public class ShooPhantom extends JavaPlugin {
         wardManager = new WardManager(this);
         fuelManager = new FuelManager(this);
         degradationManager = new DegradationManager(this);
+        structureValidator = new StructureValidator(this);
+        structureRecheckQueue = new StructureRecheckQueue(this);
+        structureStateCache = new StructureStateCache(this);
+        structureAuditor = new StructureAuditor(this);
+        qualityController = new QualityController(this);
+        phantomRegistry = new PhantomRegistry();
+        phantomRegistry.seed(getServer().getWorlds());
+        if (configManager.visualsEnabled() && configManager.isDisplayVisuals()) {
+            wardDisplayManager = new WardDisplayManager(this);
+        }
+        wardManager.initResidency();
         
         // Регистрация команд
         ShooCommand shooCommand = new ShooCommand(this);
@@ -65,6 +97,10 @@ public class ShooPhantom extends JavaPlugin {
         getServer().getPluginManager().registerEvents(new BlockListener(this), this);
         getServer().getPluginManager().registerEvents(new HopperListener(this), this);
         getServer().getPluginManager().registerEvents(new PhantomDeathListener(this), this);
+        getServer().getPluginManager().registerEvents(new ChunkListener(this), this);
+        getServer().getPluginManager().registerEvents(new CopperListener(this), this);
+        getServer().getPluginManager().registerEvents(qualityController, this);
+        getServer().getPluginManager().registerEvents(phantomRegistry, this);
         
         // Регистрация рецептов
         if (getConfig().getBoolean("activation.craft.enabled", true)) {
@@ -81,10 +117,16 @@ public class ShooPhantom extends JavaPlugin {
     public void onDisable() {
         // Остановка задач
         getServer().getScheduler().cancelTasks(this);
+        if (structureValidator != null) {
+            structureValidator.shutdown();
+        }
+        if (wardDisplayManager != null) {
+            wardDisplayManager.removeAll();
+        }
         
-        // Сохранение всех оберегов
+        // Сохранение изменённых оберегов
         if (wardManager != null) {
-            wardManager.saveAll();
+            wardManager.saveDirty();
         }
         
         // Закрытие базы данных
@@ -96,33 +138,82 @@ public class ShooPhantom extends JavaPlugin {
     }
     
     private void startTasks() {
-        // Расход топлива (каждые 20 тиков = 1 секунда)
-        new FuelConsumptionTask(this).runTaskTimer(this, 20L, 20L);
+        // Расход топлива (каждый тик, обрабатываются только догоревшие обереги)
+        new FuelConsumptionTask(this).runTaskTimer(this, 20L, 1L);
         
-        // Проверка деградации (каждые 5 минут)
-        long degradationInterval = getConfig().getInt("degradation.tier2.check-interval-minutes", 5) * 60 * 20L;
+        // Страховочная перепроверка колец Tier 2 (основной учёт - по событиям меди)
+        long degradationInterval = configManager.getTier2SafetyCheckMinutes() * 60 * 20L;
         new DegradationTask(this).runTaskTimer(this, degradationInterval, degradationInterval);
         
+        // Выгорание мачт Tier 3 (каждую секунду, обрабатываются только подошедшие по времени)
+        new MastDegradationTask(this).runTaskTimer(this, 20L, 20L);
+        
+        // Асинхронная проверка структур (снимки чанков в основном потоке, расчёт в фоне)
+        getServer().getScheduler().runTaskTimer(this, () -> structureValidator.tick(), 1L, 1L);
+        if (configManager.isRevalidateOnStartup()) {
+            new BukkitRunnable() {
+                @Override
+                public void run() {
+                    if (wardManager.isLoadingComplete()) {
+                        structureValidator.submitAll(wardManager.getAllWards());
+                        cancel();
+                    }
+                }
+            }.runTaskTimer(this, 20L, 20L);
+        }
+        
+        // Сверка оберегов с миром (в пределах бюджета тика)
+        getServer().getScheduler().runTaskTimer(this, () -> structureAuditor.tick(), 100L, 1L);
+        
         // Отталкивание фантомов Tier 3 (каждые 40 тиков)
         int repelInterval = getConfig().getInt("tiers.tier3.effects.repel.tick-interval", 40);
         new PhantomRepelTask(this).runTaskTimer(this, repelInterval, repelInterval);
         
         // Визуальные эффекты
-        if (getConfig().getBoolean("visuals.enabled", true)) {
+        if (configManager.visualsEnabled()) {
             new ParticleTask(this).runTaskTimer(this, 20L, 20L);
         }
+        if (wardDisplayManager != null) {
+            // Обереги, загруженные до создания менеджера; остальные рисуются по мере загрузки
+            getServer().getScheduler().runTask(this, wardDisplayManager::updateAll);
+        }
         
         // Автосохранение (каждые N минут)
         long saveInterval = getConfig().getInt("database.auto-save-minutes", 5) * 60 * 20L;
         getServer().getScheduler().runTaskTimerAsynchronously(this, () -> {
-            wardManager.saveAll();
+            wardManager.saveDirty();
         }, saveInterval, saveInterval);
+        
+        // Выгрузка оберегов неактивных регионов (ленивый режим)
+        if (wardManager.isLazyResidency()) {
+            getServer().getScheduler().runTaskTimer(this, () -> {
+                wardManager.evictIdleRegions();
+            }, 1200L, 1200L);
+        }
     }
     
     public void reload() {
+        StructureTemplate previousTemplate = configManager.getStructureTemplate();
+        
         reloadConfig();
         configManager = new ConfigManager(this);
         messages = new Messages(this);
+        
+        // Радиусы могли измениться
+        if (wardManager != null) {
+            wardManager.clearCoverage();
+            
+            // Форма структуры могла измениться - блоки структуры и состояния пересчитываются
+            if (!configManager.getStructureTemplate().hasSameFootprint(previousTemplate)) {
+                wardManager.rebuildSpatialIndexes();
+            }
+            structureStateCache.clear();
+            
+            // Display-визуал привязан к шаблону структуры
+            if (wardDisplayManager != null) {
+                wardDisplayManager.updateAll();
+            }
+        }
     }
     
     // Геттеры
@@ -153,4 +244,35 @@ public class ShooPhantom extends JavaPlugin {
     public DegradationManager getDegradationManager() {
         return degradationManager;
     }
+    
+    public StructureValidator getStructureValidator() {
+        return structureValidator;
+    }
+    
+    public StructureRecheckQueue getStructureRecheckQueue() {
+        return structureRecheckQueue;
+    }
+    
+    public StructureStateCache getStructureStateCache() {
+        return structureStateCache;
+    }
+    
+    public StructureAuditor getStructureAuditor() {
+        return structureAuditor;
+    }
+    
+    /**
+     * Display-визуал оберегов (null, если выбран visuals.backend: particles)
+     */
+    public WardDisplayManager getWardDisplayManager() {
+        return wardDisplayManager;
+    }
+    
+    public QualityController getQualityController() {
+        return qualityController;
+    }
+    
+    public PhantomRegistry getPhantomRegistry() {
+        return phantomRegistry;
+    }
 }
@@ -1,7 +1,7 @@
 package dev.keelbismark.shoophantom.commands;
 
-import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -10,7 +10,15 @@ import org.bukkit.entity.Player;
 import org.bukkit.util.RayTraceResult;
 
 import dev.keelbismark.shoophantom.ShooPhantom;
+import dev.keelbismark.shoophantom.data.Database;
+import dev.keelbismark.shoophantom.data.MySQLConnectionPool;
+import dev.keelbismark.shoophantom.data.MySQLDatabase;
 import dev.keelbismark.shoophantom.data.Ward;
+import dev.keelbismark.shoophantom.data.WardManager;
+import dev.keelbismark.shoophantom.data.WriteBehindDatabase;
+import dev.keelbismark.shoophantom.mechanics.QualityController;
+import dev.keelbismark.shoophantom.mechanics.StructureAuditor;
+import dev.keelbismark.shoophantom.mechanics.StructureValidator;
 import dev.keelbismark.shoophantom.items.ShooSigil;
 
 public class ShooCommand implements CommandExecutor {
@@ -57,6 +65,8 @@ public class ShooCommand implements CommandExecutor {
             sender.sendMessage("§7/shoo admin remove §f- Удалить оберег");
             sender.sendMessage("§7/shoo admin list [радиус] §f- Список оберегов");
             sender.sendMessage("§7/shoo admin setfuel <кол-во> §f- Установить топливо");
+            sender.sendMessage("§7/shoo admin status §f- Состояние плагина");
+            sender.sendMessage("§7/shoo admin revalidate [мир] §f- Сверить обереги с миром");
         }
     }
     
@@ -132,7 +142,7 @@ public class ShooCommand implements CommandExecutor {
         }
         
         if (args.length < 2) {
-            sender.sendMessage("§cИспользование: /shoo admin <reload|give|remove|list|setfuel>");
+            sender.sendMessage("§cИспользование: /shoo admin <reload|give|remove|list|setfuel|status|revalidate>");
             return true;
         }
         
@@ -149,6 +159,10 @@ public class ShooCommand implements CommandExecutor {
                 return handleList(sender, args);
             case "setfuel":
                 return handleSetFuel(sender, args);
+            case "status":
+                return handleStatus(sender);
+            case "revalidate":
+                return handleRevalidate(sender, args);
             default:
                 sender.sendMessage("§cНеизвестная команда!");
                 return true;
@@ -244,28 +258,22 @@ public class ShooCommand implements CommandExecutor {
             }
         }
         
-        Location playerLoc = player.getLocation();
         int count = 0;
-        double radiusSquared = radius * radius;
         
         player.sendMessage("§5═══ Обереги в радиусе " + radius + " блоков ═══");
         
-        for (Ward ward : plugin.getWardManager().getWardsByWorld(player.getWorld().getName())) {
-            Location wardLoc = ward.getLocation(player.getWorld());
+        for (Ward ward : plugin.getWardManager().getWardsInRadius(player.getLocation(), radius)) {
+            String ownerName = plugin.getServer().getOfflinePlayer(ward.getOwnerUUID()).getName();
+            if (ownerName == null) ownerName = "Неизвестен";
             
-            if (wardLoc.distanceSquared(playerLoc) <= radiusSquared) {
-                String ownerName = plugin.getServer().getOfflinePlayer(ward.getOwnerUUID()).getName();
-                if (ownerName == null) ownerName = "Неизвестен";
-                
-                player.sendMessage(String.format("§7- §fTier %d §7| §f%s §7| §f%d, %d, %d §7| Владелец: §f%s",
-                    ward.getTier(),
-                    ward.isActive() ? "§aАктивен" : "§cНеактивен",
-                    ward.getX(), ward.getY(), ward.getZ(),
-                    ownerName
-                ));
-                
-                count++;
-            }
+            player.sendMessage(String.format("§7- §fTier %d §7| §f%s §7| §f%d, %d, %d §7| Владелец: §f%s",
+                ward.getTier(),
+                ward.isActive() ? "§aАктивен" : "§cНеактивен",
+                ward.getX(), ward.getY(), ward.getZ(),
+                ownerName
+            ));
+            
+            count++;
         }
         
         player.sendMessage("§7Всего: §f" + count);
@@ -317,6 +325,132 @@ public class ShooCommand implements CommandExecutor {
         return true;
     }
     
+    /**
+     * Админ: revalidate [мир]
+     */
+    private boolean handleRevalidate(CommandSender sender, String[] args) {
+        String worldName = null;
+        if (args.length >= 3) {
+            World world = plugin.getServer().getWorld(args[2]);
+            if (world == null) {
+                sender.sendMessage("§cМир не найден!");
+                return true;
+            }
+            worldName = world.getName();
+        }
+        
+        if (!plugin.getWardManager().isLoadingComplete()) {
+            sender.sendMessage("§cОбереги ещё загружаются, попробуйте позже.");
+            return true;
+        }
+        
+        StructureAuditor auditor = plugin.getStructureAuditor();
+        if (!auditor.revalidate(sender, worldName)) {
+            sender.sendMessage("§eПроверка уже идёт, осталось: §f" + auditor.getRemaining());
+            return true;
+        }
+        
+        sender.sendMessage("§aПроверка структур запущена: §f" + auditor.getRemaining() + " §aоберегов"
+            + (worldName != null ? " в мире " + worldName : ""));
+        return true;
+    }
+    
+    /**
+     * Админ: status
+     */
+    private boolean handleStatus(CommandSender sender) {
+        sender.sendMessage("§5═══ Shoo! Phantom: состояние ═══");
+        sender.sendMessage("§7Обереги в памяти: §f" + plugin.getWardManager().getAllWards().size()
+            + " §7| изменено с автосохранения: §f" + plugin.getWardManager().getDirtyCount());
+        
+        WardManager wardManager = plugin.getWardManager();
+        sender.sendMessage(String.format("§7Загрузка: %s §7| миры: §f%d/%d §7| время: §f%d мс",
+            wardManager.isLoadingComplete() ? "§aзавершена" : "§eидёт",
+            wardManager.getLoadedWorldCount(),
+            wardManager.getTotalWorldCount(),
+            wardManager.getLoadMillis()
+        ));
+        if (wardManager.isLazyResidency()) {
+            sender.sendMessage("§7Регионов в памяти: §f" + wardManager.getResidentRegionCount());
+        }
+        sender.sendMessage("§7Ожидают окончания горения: §f" + wardManager.getScheduledFuelCount()
+            + " §7| выгорания мачт: §f" + wardManager.getScheduledDegradationCount());
+        sender.sendMessage("§7Избежано загрузок чанков: §f" + wardManager.getAvoidedChunkLoads());
+        
+        StructureValidator validator = plugin.getStructureValidator();
+        sender.sendMessage(String.format("§7Проверка структур: очередь §f%d §7| в работе: §f%d §7| проверено: §f%d §7| изменено: §f%d §7| устарело: §f%d",
+            validator.getQueuedCount(),
+            validator.getInFlightCount(),
+            validator.getValidatedCount(),
+            validator.getChangedCount(),
+            validator.getStaleCount()
+        ));
+        sender.sendMessage("§7Изменения структур: отмечено §f" + plugin.getStructureRecheckQueue().getMarkedCount()
+            + " §7| пересчитано: §f" + plugin.getStructureRecheckQueue().getEvaluatedCount());
+        sender.sendMessage(String.format("§7Кэш структур: §f%d §7| попаданий: §f%d §7| промахов: §f%d",
+            plugin.getStructureStateCache().size(),
+            plugin.getStructureStateCache().getHits(),
+            plugin.getStructureStateCache().getMisses()
+        ));
+        StructureAuditor auditor = plugin.getStructureAuditor();
+        sender.sendMessage(String.format("§7Сверка с миром: проходов §f%d §7| проверено: §f%d §7| исправлено: §f%d §7| удалено: §f%d §7| пропущено: §f%d%s",
+            auditor.getPassCount(),
+            auditor.getCheckedCount(),
+            auditor.getFixedCount(),
+            auditor.getRemovedCount(),
+            auditor.getSkippedCount(),
+            auditor.isRevalidating() ? " §7| ручная, осталось: §f" + auditor.getRemaining() : ""
+        ));
+        sender.sendMessage("§7Фантомов в мирах: §f" + plugin.getPhantomRegistry().size());
+        QualityController quality = plugin.getQualityController();
+        sender.sendMessage(String.format("§7Качество эффектов: уровень §f%d/%d §7| MSPT: §f%.1f §7| частицы: §f%d%% §7| отталкивание: §fx%d §7| смен уровня: §f%d%s",
+            quality.getLevel(),
+            quality.getMaxLevel(),
+            quality.getAverageMspt(),
+            Math.round(quality.getParticleDensity() * 100),
+            quality.getRepelIntervalMultiplier(),
+            quality.getLevelChanges(),
+            plugin.getConfigManager().isAdaptiveQualityEnabled() ? "" : " §7(выключено)"
+        ));
+        if (plugin.getWardDisplayManager() != null) {
+            sender.sendMessage("§7Display-визуал: оберегов §f" + plugin.getWardDisplayManager().getRenderedCount()
+                + " §7| создано сущностей: §f" + plugin.getWardDisplayManager().getSpawnedCount());
+        }
+        
+        if (plugin.getDatabase() instanceof WriteBehindDatabase writeBehind) {
+            sender.sendMessage(String.format("§7Очередь записи: §f%d §7| объединено: §f%d §7| записано: §f%d",
+                writeBehind.getQueueDepth(),
+                writeBehind.getCoalescedSaves(),
+                writeBehind.getFlushedRows()
+            ));
+            sender.sendMessage(String.format("§7Последний сброс: §f%d §7строк за §f%.1f мс §7| макс: §f%.1f мс §7| неудачных: §f%d",
+                writeBehind.getLastFlushRows(),
+                writeBehind.getLastFlushMillis(),
+                writeBehind.getMaxFlushMillis(),
+                writeBehind.getFailedFlushes()
+            ));
+        } else {
+            sender.sendMessage("§7Отложенная запись: §cвыключена");
+        }
+        
+        Database backend = plugin.getDatabase() instanceof WriteBehindDatabase writeBehind
+            ? writeBehind.getDelegate()
+            : plugin.getDatabase();
+        if (backend instanceof MySQLDatabase mysql && mysql.getPool() != null) {
+            MySQLConnectionPool pool = mysql.getPool();
+            sender.sendMessage(String.format("§7Пул MySQL: §f%d §7открыто, §f%d §7свободно | создано: §f%d "
+                    + "§7| ошибок проверки: §f%d §7| таймаутов: §f%d",
+                pool.getTotalConnections(),
+                pool.getIdleConnections(),
+                pool.getCreatedConnections(),
+                pool.getValidationFailures(),
+                pool.getCheckoutTimeouts()
+            ));
+        }
+        
+        return true;
+    }
+    
     /**
      * Получить блок, на который смотрит игрок
      */
@@ -1,5 +1,7 @@
 package dev.keelbismark.shoophantom.commands;
 
+import org.bukkit.Bukkit;
+import org.bukkit.World;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
@@ -32,7 +34,7 @@ public class ShooTabCompleter implements TabCompleter {
         } else if (args.length == 2 && args[0].equalsIgnoreCase("admin")) {
             // Админ команды
             if (sender.hasPermission("shoo.admin")) {
-                List<String> adminCommands = Arrays.asList("reload", "give", "remove", "list", "setfuel");
+                List<String> adminCommands = Arrays.asList("reload", "give", "remove", "list", "setfuel", "status", "revalidate");
                 
                 for (String cmd : adminCommands) {
                     if (cmd.toLowerCase().startsWith(args[1].toLowerCase())) {
@@ -48,6 +50,14 @@ public class ShooTabCompleter implements TabCompleter {
         } else if (args.length == 4 && args[0].equalsIgnoreCase("admin") && args[1].equalsIgnoreCase("give")) {
             // Тип предмета
             completions.add("sigil");
+            
+        } else if (args.length == 3 && args[0].equalsIgnoreCase("admin") && args[1].equalsIgnoreCase("revalidate")) {
+            // Миры для проверки
+            for (World world : Bukkit.getWorlds()) {
+                if (world.getName().toLowerCase().startsWith(args[2].toLowerCase())) {
+                    completions.add(world.getName());
+                }
+            }
         }
         
         return completions;
@@ -4,9 +4,12 @@ import org.bukkit.Material;
 import org.bukkit.configuration.file.FileConfiguration;
 
 import dev.keelbismark.shoophantom.ShooPhantom;
+import dev.keelbismark.shoophantom.mechanics.StructureTemplate;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 
 /**
@@ -17,6 +20,8 @@ public class ConfigManager {
     
     private final ShooPhantom plugin;
     private final FileConfiguration config;
+    private Set<Material> tier2AliveMaterials; // Разбирается один раз, проверяется на каждое изменение меди
+    private volatile StructureTemplate structureTemplate; // Читается и потоками проверки структур
     
     public ConfigManager(ShooPhantom plugin) {
         this.plugin = plugin;
@@ -74,6 +79,10 @@ public class ConfigManager {
     }
     
     public Set<Material> getTier2AliveMaterials() {
+        if (tier2AliveMaterials != null) {
+            return tier2AliveMaterials;
+        }
+        
         List<String> materials = config.getStringList("structure.tier2.alive-materials");
         Set<Material> result = new HashSet<>();
         for (String mat : materials) {
@@ -84,7 +93,8 @@ public class ConfigManager {
                 result.add(Material.COPPER_BLOCK);
             }
         }
-        return result;
+        tier2AliveMaterials = Set.copyOf(result);
+        return tier2AliveMaterials;
     }
     
     public Set<Material> getTier2DeadMaterials() {
@@ -158,6 +168,45 @@ public class ConfigManager {
         return config.getInt("degradation.tier3.pause-check-radius", 128);
     }
     
+    // Асинхронная проверка структур
+    public int getValidationThreads() {
+        return config.getInt("structure.async-validation.threads", 2);
+    }
+    
+    public int getValidationSnapshotsPerTick() {
+        return config.getInt("structure.async-validation.snapshots-per-tick", 8);
+    }
+    
+    public boolean isRevalidateOnStartup() {
+        return config.getBoolean("structure.async-validation.revalidate-on-startup", false);
+    }
+    
+    // Фоновая сверка структур с миром
+    public boolean isAuditEnabled() {
+        return config.getBoolean("structure.audit.enabled", true);
+    }
+    
+    public double getAuditBudgetMillis() {
+        return config.getDouble("structure.audit.budget-ms", 0.5);
+    }
+    
+    public int getAuditIntervalTicks() {
+        return config.getInt("structure.audit.interval-ticks", 20);
+    }
+    
+    public int getTier2SafetyCheckMinutes() {
+        // Старый ключ check-interval-minutes до переименования - читается, пока новый не задан
+        if (!config.isSet("degradation.tier2.safety-check-minutes") && config.isSet("degradation.tier2.check-interval-minutes")) {
+            plugin.getLogger().warning("degradation.tier2.check-interval-minutes устарел, используйте degradation.tier2.safety-check-minutes");
+            return config.getInt("degradation.tier2.check-interval-minutes");
+        }
+        return config.getInt("degradation.tier2.safety-check-minutes", 60);
+    }
+    
+    public int getTier3PauseDeferMinutes() {
+        return config.getInt("degradation.tier3.pause-defer-minutes", 5);
+    }
+    
     // Структура
     /**
      * Returns the material placed above the flower pot.
@@ -191,6 +240,138 @@ public class ConfigManager {
         return parseMaterial("structure.tier3.mast-dead", Material.IRON_BARS);
     }
     
+    /**
+     * Своя форма Tier 1: клетки "dx dy dz МАТЕРИАЛ[|МАТЕРИАЛ...]", пусто - крест above/below/sides/corners
+     */
+    public List<String> getTier1Pattern() {
+        return config.getStringList("structure.tier1.pattern");
+    }
+    
+    public boolean isTier1RotationsEnabled() {
+        return config.getBoolean("structure.tier1.rotations", false);
+    }
+    
+    public int getTier2RingSize() {
+        return config.getInt("structure.tier2.ring-size", 5);
+    }
+    
+    public int getTier2RingYOffset() {
+        return config.getInt("structure.tier2.ring-y-offset", -1);
+    }
+    
+    public int getTier3MastGlassHeight() {
+        return config.getInt("structure.tier3.mast-glass-height", 3);
+    }
+    
+    /**
+     * Позиции оснований мачт Tier 3 относительно горшка
+     * @return list of {dx, dy, dz}
+     */
+    public List<int[]> getTier3MastPositions() {
+        List<int[]> result = new ArrayList<>();
+        for (Object entry : config.getList("structure.tier3.mast-positions", List.of())) {
+            if (entry instanceof List<?> coords && coords.size() == 3
+                    && coords.stream().allMatch(c -> c instanceof Number)) {
+                result.add(new int[] {
+                    ((Number) coords.get(0)).intValue(),
+                    ((Number) coords.get(1)).intValue(),
+                    ((Number) coords.get(2)).intValue()
+                });
+            } else {
+                plugin.getLogger().warning("Некорректная позиция мачты в mast-positions: " + entry + ", ожидается [x, y, z]");
+            }
+        }
+        if (result.isEmpty()) {
+            result.add(new int[] {2, 0, 2});
+            result.add(new int[] {2, 0, -2});
+            result.add(new int[] {-2, 0, 2});
+            result.add(new int[] {-2, 0, -2});
+        }
+        return result;
+    }
+    
+    /**
+     * Скомпилированный шаблон структуры (собирается один раз на конфиг)
+     */
+    public StructureTemplate getStructureTemplate() {
+        if (structureTemplate == null) {
+            structureTemplate = StructureTemplate.compile(this, plugin.getLogger());
+        }
+        return structureTemplate;
+    }
+    
+    // Визуальные эффекты
+    /**
+     * Кольца и лучи рисуются display-сущностями вместо частиц
+     */
+    public boolean isDisplayVisuals() {
+        return "displays".equalsIgnoreCase(config.getString("visuals.backend", "particles"));
+    }
+    
+    /**
+     * Расстояние, с которого игрок видит частицы оберега (блоки)
+     */
+    public int getVisualsViewDistance() {
+        return config.getInt("visuals.view-distance", 32);
+    }
+    
+    // Адаптивное качество
+    public boolean isAdaptiveQualityEnabled() {
+        return config.getBoolean("adaptive-quality.enabled", true);
+    }
+    
+    public int getAdaptiveWindowTicks() {
+        return Math.max(1, config.getInt("adaptive-quality.window-ticks", 100));
+    }
+    
+    /**
+     * Пороги среднего MSPT для перехода на уровни 1, 2, ... (по возрастанию)
+     */
+    public double[] getAdaptiveStepDownMspt() {
+        List<Double> values = config.getDoubleList("adaptive-quality.step-down-mspt");
+        if (values.isEmpty()) {
+            return new double[] {30.0, 40.0, 45.0};
+        }
+        return values.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+    }
+    
+    public double getAdaptiveRecoverMarginMspt() {
+        return config.getDouble("adaptive-quality.recover-margin-mspt", 5.0);
+    }
+    
+    public int getAdaptiveRecoverDelayTicks() {
+        return config.getInt("adaptive-quality.recover-delay-ticks", 200);
+    }
+    
+    /**
+     * Доля частиц на уровне качества (1.0 - все, 0 - без частиц)
+     */
+    public double getAdaptiveParticleDensity(int level) {
+        List<Double> values = config.getDoubleList("adaptive-quality.particle-density");
+        if (values.isEmpty()) {
+            values = List.of(1.0, 0.5, 0.25, 0.0);
+        }
+        return Math.max(0, Math.min(1, values.get(Math.min(level, values.size() - 1))));
+    }
+    
+    /**
+     * Во сколько раз реже отталкиваются фантомы на уровне качества
+     */
+    public int getAdaptiveRepelIntervalMultiplier(int level) {
+        List<Integer> values = config.getIntegerList("adaptive-quality.repel-interval-multiplier");
+        if (values.isEmpty()) {
+            values = List.of(1, 1, 2, 4);
+        }
+        return Math.max(1, values.get(Math.min(level, values.size() - 1)));
+    }
+    
+    /**
+     * Тик дольше этого (мс) - частицы следующего прогона пропускаются
+     */
+    public double getAdaptiveSkipCosmeticsMspt() {
+        return config.getDouble("adaptive-quality.skip-cosmetics-above-mspt", 45.0);
+    }
+    
     // Топливо
     public Material getFuelMaterial() {
         return parseMaterial("fuel.item", Material.PHANTOM_MEMBRANE);
@@ -225,4 +406,36 @@ public class ConfigManager {
     public boolean visualsEnabled() {
         return config.getBoolean("visuals.enabled", true);
     }
+    
+    // База данных
+    public boolean isWriteBehindEnabled() {
+        return config.getBoolean("database.write-behind.enabled", true);
+    }
+    
+    public int getWriteBehindFlushTicks() {
+        return config.getInt("database.write-behind.flush-interval-ticks", 40);
+    }
+    
+    public boolean isAsyncLoadingEnabled() {
+        return config.getBoolean("database.loading.async", false);
+    }
+    
+    public int getLoadingFetchSize() {
+        return config.getInt("database.loading.fetch-size", 500);
+    }
+    
+    /**
+     * @return PROTECTED or QUERY
+     */
+    public String getLoadingFallback() {
+        return config.getString("database.loading.fallback", "PROTECTED").toUpperCase(Locale.ROOT);
+    }
+    
+    public boolean isLazyResidencyEnabled() {
+        return config.getBoolean("database.residency.lazy", false);
+    }
+    
+    public int getResidencyEvictSeconds() {
+        return config.getInt("database.residency.evict-after-seconds", 300);
+    }
 }
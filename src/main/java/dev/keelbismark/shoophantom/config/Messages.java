@@ -115,12 +115,12 @@ public class Messages {
         return get("info.time-left", "time", time);
     }
     
-    public String infoMasts(int alive, int percent) {
-        return get("info.masts", "alive", String.valueOf(alive), "percent", String.valueOf(percent));
+    public String infoMasts(int alive, int total, int percent) {
+        return get("info.masts", "alive", String.valueOf(alive), "total", String.valueOf(total), "percent", String.valueOf(percent));
     }
     
-    public String infoRing(int alive) {
-        return get("info.ring", "alive", String.valueOf(alive));
+    public String infoRing(int alive, int total) {
+        return get("info.ring", "alive", String.valueOf(alive), "total", String.valueOf(total));
     }
     
     // Разрушение
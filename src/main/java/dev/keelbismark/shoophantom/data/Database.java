@@ -2,8 +2,10 @@ package dev.keelbismark.shoophantom.data;
 
 import org.bukkit.Location;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface Database {
     
@@ -24,6 +26,13 @@ public interface Database {
      */
     void saveWard(Ward ward);
     
+    /**
+     * Сохранить несколько оберегов одной транзакцией
+     * @param wards обереги
+     * @return true, если транзакция зафиксирована (или обереги приняты в очередь записи)
+     */
+    boolean saveWards(Collection<Ward> wards);
+    
     /**
      * Загрузить оберег по ID
      * @param id UUID оберега
@@ -58,12 +67,43 @@ public interface Database {
      */
     List<Ward> loadAllWards();
     
+    /**
+     * Получить список миров, в которых есть обереги
+     * @return названия миров
+     */
+    List<String> loadWardWorlds();
+    
+    /**
+     * Потоково загрузить обереги мира, не собирая их в один список
+     * @param worldName название мира
+     * @param fetchSize сколько строк запрашивать у базы за раз
+     * @param consumer получатель оберегов
+     */
+    void streamWardsByWorld(String worldName, int fetchSize, Consumer<Ward> consumer);
+    
+    /**
+     * Загрузить обереги в квадрате вокруг точки
+     * @param worldName название мира
+     * @param x центр X
+     * @param z центр Z
+     * @param radius половина стороны квадрата
+     * @return список оберегов
+     */
+    List<Ward> loadWardsNear(String worldName, int x, int z, int radius);
+    
     /**
      * Удалить оберег
      * @param id UUID оберега
      */
     void deleteWard(UUID id);
     
+    /**
+     * Удалить несколько оберегов одной транзакцией
+     * @param ids UUID оберегов
+     * @return true, если транзакция зафиксирована (или удаления приняты в очередь записи)
+     */
+    boolean deleteWards(Collection<UUID> ids);
+    
     /**
      * Подсчитать обереги игрока
      * @param ownerUUID UUID владельца
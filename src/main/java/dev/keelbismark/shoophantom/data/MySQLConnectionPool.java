@@ -0,0 +1,308 @@
+package dev.keelbismark.shoophantom.data;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Small bounded JDBC connection pool for {@link MySQLDatabase}.
+ * <p>
+ * At most {@code maxSize} physical connections are open at once. A borrower waits up
+ * to the checkout timeout for a free connection. Idle connections are validated
+ * before reuse and are closed once they exceed the idle timeout or the max lifetime.
+ * A connection marked broken after an SQL error is closed when it is returned, so a
+ * dead handle is never handed out again without validation.
+ * Every pooled connection keeps its own cache of prepared statements keyed by SQL
+ * text, so hot queries are prepared once per connection instead of once per call.
+ */
+public class MySQLConnectionPool {
+
+    private static final long EVICTION_INTERVAL_MILLIS = 30_000;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final Logger logger;
+
+    private final int maxSize;
+    private final long checkoutTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final long validationIntervalMillis;
+    private final int validationTimeoutSeconds;
+    private final int maxValidationFailures;
+
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong checkoutTimeouts = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private volatile long lastEviction;
+    private volatile boolean closed;
+
+    public MySQLConnectionPool(String url, String username, String password, Logger logger,
+                               int maxSize, long checkoutTimeoutMillis, long idleTimeoutMillis,
+                               long maxLifetimeMillis, int validationTimeoutSeconds, int maxValidationFailures) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.logger = logger;
+        this.maxSize = Math.max(1, maxSize);
+        this.checkoutTimeoutMillis = Math.max(0, checkoutTimeoutMillis);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.validationIntervalMillis = 1000;
+        this.validationTimeoutSeconds = Math.max(1, validationTimeoutSeconds);
+        this.maxValidationFailures = Math.max(1, maxValidationFailures);
+    }
+
+    /**
+     * Взять соединение из пула
+     * Must be returned with {@link PooledConnection#close()}, normally via try-with-resources.
+     * @throws SQLException if no valid connection could be obtained within the checkout timeout
+     */
+    public PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Пул соединений MySQL закрыт");
+        }
+
+        long start = System.currentTimeMillis();
+        long deadline = start + checkoutTimeoutMillis;
+        int failures = 0;
+
+        if (start - lastEviction >= EVICTION_INTERVAL_MILLIS) {
+            lastEviction = start;
+            evictIdle();
+        }
+
+        while (true) {
+            PooledConnection conn = idle.pollFirst();
+
+            if (conn == null && reserveSlot()) {
+                try {
+                    return open();
+                } catch (SQLException e) {
+                    total.decrementAndGet();
+                    throw e;
+                }
+            }
+
+            if (conn == null) {
+                long wait = deadline - System.currentTimeMillis();
+                try {
+                    conn = wait > 0 ? idle.pollFirst(wait, TimeUnit.MILLISECONDS) : null;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Ожидание соединения MySQL прервано", e);
+                }
+                if (conn == null) {
+                    checkoutTimeouts.incrementAndGet();
+                    throw new SQLException("Нет свободных соединений MySQL за " + checkoutTimeoutMillis + " мс");
+                }
+            }
+
+            long now = System.currentTimeMillis();
+            if (isExpired(conn, now)) {
+                discard(conn);
+                continue;
+            }
+
+            if (now - conn.lastUsed >= validationIntervalMillis && !isValid(conn)) {
+                validationFailures.incrementAndGet();
+                discard(conn);
+                if (++failures >= maxValidationFailures) {
+                    throw new SQLException("Соединение MySQL не прошло проверку " + failures + " раз подряд");
+                }
+                continue;
+            }
+
+            return conn;
+        }
+    }
+
+    /**
+     * Закрыть все простаивающие соединения, у которых истёк срок
+     */
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        int size = idle.size();
+        for (int i = 0; i < size; i++) {
+            PooledConnection conn = idle.pollLast();
+            if (conn == null) {
+                break;
+            }
+            if (isExpired(conn, now)) {
+                discard(conn);
+            } else {
+                idle.offerFirst(conn);
+            }
+        }
+    }
+
+    public void close() {
+        closed = true;
+        PooledConnection conn;
+        while ((conn = idle.pollFirst()) != null) {
+            discard(conn);
+        }
+    }
+
+    public int getTotalConnections() {
+        return total.get();
+    }
+
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    public long getValidationFailures() {
+        return validationFailures.get();
+    }
+
+    public long getCheckoutTimeouts() {
+        return checkoutTimeouts.get();
+    }
+
+    public long getCreatedConnections() {
+        return created.get();
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = total.get();
+            if (current >= maxSize) {
+                return false;
+            }
+            if (total.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, username, password);
+        created.incrementAndGet();
+        return new PooledConnection(connection);
+    }
+
+    private boolean isExpired(PooledConnection conn, long now) {
+        return (maxLifetimeMillis > 0 && now - conn.createdAt >= maxLifetimeMillis)
+            || (idleTimeoutMillis > 0 && now - conn.lastUsed >= idleTimeoutMillis);
+    }
+
+    private boolean isValid(PooledConnection conn) {
+        try {
+            return conn.connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection conn) {
+        if (conn.broken) {
+            discard(conn);
+            return;
+        }
+
+        try {
+            if (!conn.connection.getAutoCommit()) {
+                // Незавершённая транзакция - откатываем, чтобы не отдать её следующему
+                conn.connection.rollback();
+                conn.connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            discard(conn);
+            return;
+        }
+
+        conn.lastUsed = System.currentTimeMillis();
+        if (closed || isExpired(conn, conn.lastUsed)) {
+            discard(conn);
+        } else {
+            idle.offerFirst(conn);
+        }
+    }
+
+    private void discard(PooledConnection conn) {
+        total.decrementAndGet();
+        conn.closePhysical();
+    }
+
+    /**
+     * Соединение, выданное пулом
+     */
+    public final class PooledConnection implements AutoCloseable {
+
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+        private final long createdAt;
+        private long lastUsed;
+        private boolean broken;
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+            this.createdAt = System.currentTimeMillis();
+            this.lastUsed = createdAt;
+        }
+
+        public Connection getConnection() {
+            return connection;
+        }
+
+        /**
+         * Получить подготовленный запрос из кэша соединения
+         * The statement is owned by the pool and must not be closed by the caller.
+         */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement stmt = statements.get(sql);
+            if (stmt == null || stmt.isClosed()) {
+                stmt = connection.prepareStatement(sql);
+                statements.put(sql, stmt);
+            } else {
+                stmt.clearParameters();
+                stmt.clearBatch();
+            }
+            return stmt;
+        }
+
+        /**
+         * Отметить соединение неисправным - при возврате оно будет закрыто
+         */
+        public void markBroken() {
+            broken = true;
+        }
+
+        /**
+         * Вернуть соединение в пул
+         */
+        @Override
+        public void close() {
+            release(this);
+        }
+
+        private void closePhysical() {
+            for (PreparedStatement stmt : statements.values()) {
+                try {
+                    stmt.close();
+                } catch (SQLException ignored) {
+                    // Соединение всё равно закрывается
+                }
+            }
+            statements.clear();
+
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.warning("Ошибка закрытия соединения MySQL: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -3,16 +3,36 @@ package dev.keelbismark.shoophantom.data;
 import org.bukkit.Location;
 
 import dev.keelbismark.shoophantom.ShooPhantom;
+import dev.keelbismark.shoophantom.data.MySQLConnectionPool.PooledConnection;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public class MySQLDatabase implements Database {
     
+    private static final String SAVE_SQL = "INSERT INTO wards " +
+            "(id, owner_uuid, world, x, y, z, tier, fuel, burn_end_time, next_degrade_time, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "tier=VALUES(tier), fuel=VALUES(fuel), burn_end_time=VALUES(burn_end_time), " +
+            "next_degrade_time=VALUES(next_degrade_time)";
+    private static final String DELETE_SQL = "DELETE FROM wards WHERE id = ?";
+    private static final String SELECT_BY_ID_SQL = "SELECT * FROM wards WHERE id = ?";
+    private static final String SELECT_BY_LOCATION_SQL = "SELECT * FROM wards WHERE world = ? AND x = ? AND y = ? AND z = ?";
+    private static final String SELECT_BY_OWNER_SQL = "SELECT * FROM wards WHERE owner_uuid = ?";
+    private static final String SELECT_BY_WORLD_SQL = "SELECT * FROM wards WHERE world = ?";
+    private static final String SELECT_ALL_SQL = "SELECT * FROM wards";
+    private static final String SELECT_WORLDS_SQL = "SELECT DISTINCT world FROM wards";
+    private static final String SELECT_NEAR_SQL = "SELECT * FROM wards WHERE world = ? AND x BETWEEN ? AND ? AND z BETWEEN ? AND ?";
+    private static final String COUNT_BY_OWNER_SQL = "SELECT COUNT(*) FROM wards WHERE owner_uuid = ?";
+    private static final int BATCH_SIZE = 1000;
+    
     private final ShooPhantom plugin;
-    private Connection connection;
+    private MySQLConnectionPool pool;
     private final String host;
     private final int port;
     private final String database;
@@ -33,10 +53,16 @@ public class MySQLDatabase implements Database {
         try {
             Class.forName("com.mysql.cj.jdbc.Driver");
             
-            String url = String.format("jdbc:mysql://%s:%d/%s?autoReconnect=true&useSSL=false", 
+            String url = String.format("jdbc:mysql://%s:%d/%s?useSSL=false&rewriteBatchedStatements=true",
                     host, port, database);
             
-            connection = DriverManager.getConnection(url, username, password);
+            pool = new MySQLConnectionPool(url, username, password, plugin.getLogger(),
+                    plugin.getConfig().getInt("database.mysql.pool.max-size", 4),
+                    plugin.getConfig().getLong("database.mysql.pool.checkout-timeout-ms", 5000),
+                    plugin.getConfig().getLong("database.mysql.pool.idle-timeout-seconds", 600) * 1000L,
+                    plugin.getConfig().getLong("database.mysql.pool.max-lifetime-seconds", 1800) * 1000L,
+                    plugin.getConfig().getInt("database.mysql.pool.validation-timeout-seconds", 3),
+                    plugin.getConfig().getInt("database.mysql.pool.max-validation-failures", 3));
             
             createTables();
             
@@ -66,131 +92,125 @@ public class MySQLDatabase implements Database {
                 "UNIQUE KEY location_unique (world, x, y, z)" +
                 ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4";
         
-        try (Statement stmt = connection.createStatement()) {
+        try (PooledConnection conn = pool.borrow();
+             Statement stmt = conn.getConnection().createStatement()) {
             stmt.execute(sql);
         }
     }
     
     @Override
     public void close() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                plugin.getLogger().info("MySQL подключение закрыто");
-            }
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Ошибка закрытия MySQL: " + e.getMessage());
+        if (pool != null) {
+            pool.close();
+            plugin.getLogger().info("MySQL подключение закрыто");
         }
     }
     
-    private void checkConnection() throws SQLException {
-        if (connection == null || connection.isClosed() || !connection.isValid(5)) {
-            initialize();
+    /**
+     * Пул соединений (для статистики)
+     */
+    public MySQLConnectionPool getPool() {
+        return pool;
+    }
+    
+    /**
+     * Выполнить работу на соединении из пула
+     * An SQLException marks the connection broken so the pool discards it instead of
+     * handing it out again.
+     * @param errorMessage message logged if the work fails
+     * @param fallback result returned on failure
+     */
+    private <T> T withConnection(String errorMessage, T fallback, SqlWork<T> work) {
+        try (PooledConnection conn = pool.borrow()) {
+            try {
+                return work.run(conn);
+            } catch (SQLException e) {
+                conn.markBroken();
+                throw e;
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().severe(errorMessage + ": " + e.getMessage());
+            return fallback;
         }
     }
     
     @Override
     public void saveWard(Ward ward) {
-        try {
-            checkConnection();
-            
-            String sql = "INSERT INTO wards " +
-                    "(id, owner_uuid, world, x, y, z, tier, fuel, burn_end_time, next_degrade_time, created_at) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
-                    "ON DUPLICATE KEY UPDATE " +
-                    "tier=VALUES(tier), fuel=VALUES(fuel), burn_end_time=VALUES(burn_end_time), " +
-                    "next_degrade_time=VALUES(next_degrade_time)";
+        withConnection("Ошибка сохранения оберега", null, conn -> {
+            PreparedStatement stmt = conn.prepare(SAVE_SQL);
+            bindWard(stmt, ward);
+            stmt.executeUpdate();
+            return null;
+        });
+    }
+    
+    @Override
+    public boolean saveWards(Collection<Ward> wards) {
+        if (wards.isEmpty()) {
+            return true;
+        }
+        
+        // Незавершённая транзакция откатывается при возврате соединения в пул
+        return withConnection("Ошибка пакетного сохранения оберегов", false, conn -> {
+            conn.getConnection().setAutoCommit(false);
             
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                stmt.setString(1, ward.getId().toString());
-                stmt.setString(2, ward.getOwnerUUID().toString());
-                stmt.setString(3, ward.getWorld());
-                stmt.setInt(4, ward.getX());
-                stmt.setInt(5, ward.getY());
-                stmt.setInt(6, ward.getZ());
-                stmt.setInt(7, ward.getTier());
-                stmt.setInt(8, ward.getFuel());
-                stmt.setLong(9, ward.getBurnEndTime());
-                stmt.setLong(10, ward.getNextDegradeTime());
-                stmt.setLong(11, ward.getCreatedAt());
-                stmt.executeUpdate();
+            PreparedStatement stmt = conn.prepare(SAVE_SQL);
+            int pending = 0;
+            for (Ward ward : wards) {
+                bindWard(stmt, ward);
+                stmt.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    stmt.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                stmt.executeBatch();
             }
             
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Ошибка сохранения оберега: " + e.getMessage());
-        }
+            conn.getConnection().commit();
+            conn.getConnection().setAutoCommit(true);
+            return true;
+        });
     }
     
     @Override
     public Ward loadWard(UUID id) {
-        try {
-            checkConnection();
-            
-            String sql = "SELECT * FROM wards WHERE id = ?";
+        return withConnection("Ошибка загрузки оберега", null, conn -> {
+            PreparedStatement stmt = conn.prepare(SELECT_BY_ID_SQL);
+            stmt.setString(1, id.toString());
             
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                stmt.setString(1, id.toString());
-                ResultSet rs = stmt.executeQuery();
-                
-                if (rs.next()) {
-                    return createWardFromResultSet(rs);
-                }
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? createWardFromResultSet(rs) : null;
             }
-            
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Ошибка загрузки оберега: " + e.getMessage());
-        }
-        
-        return null;
+        });
     }
     
     @Override
     public Ward loadWardByLocation(Location location) {
-        try {
-            checkConnection();
-            
-            String sql = "SELECT * FROM wards WHERE world = ? AND x = ? AND y = ? AND z = ?";
+        return withConnection("Ошибка загрузки оберега по локации", null, conn -> {
+            PreparedStatement stmt = conn.prepare(SELECT_BY_LOCATION_SQL);
+            stmt.setString(1, location.getWorld().getName());
+            stmt.setInt(2, location.getBlockX());
+            stmt.setInt(3, location.getBlockY());
+            stmt.setInt(4, location.getBlockZ());
             
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                stmt.setString(1, location.getWorld().getName());
-                stmt.setInt(2, location.getBlockX());
-                stmt.setInt(3, location.getBlockY());
-                stmt.setInt(4, location.getBlockZ());
-                ResultSet rs = stmt.executeQuery();
-                
-                if (rs.next()) {
-                    return createWardFromResultSet(rs);
-                }
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? createWardFromResultSet(rs) : null;
             }
-            
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Ошибка загрузки оберега по локации: " + e.getMessage());
-        }
-        
-        return null;
+        });
     }
     
     @Override
     public List<Ward> loadWardsByOwner(UUID ownerUUID) {
         List<Ward> wards = new ArrayList<>();
         
-        try {
-            checkConnection();
-            
-            String sql = "SELECT * FROM wards WHERE owner_uuid = ?";
-            
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                stmt.setString(1, ownerUUID.toString());
-                ResultSet rs = stmt.executeQuery();
-                
-                while (rs.next()) {
-                    wards.add(createWardFromResultSet(rs));
-                }
-            }
-            
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Ошибка загрузки оберегов владельца: " + e.getMessage());
-        }
+        withConnection("Ошибка загрузки оберегов владельца", null, conn -> {
+            PreparedStatement stmt = conn.prepare(SELECT_BY_OWNER_SQL);
+            stmt.setString(1, ownerUUID.toString());
+            readWards(stmt, wards);
+            return null;
+        });
         
         return wards;
     }
@@ -199,23 +219,12 @@ public class MySQLDatabase implements Database {
     public List<Ward> loadWardsByWorld(String worldName) {
         List<Ward> wards = new ArrayList<>();
         
-        try {
-            checkConnection();
-            
-            String sql = "SELECT * FROM wards WHERE world = ?";
-            
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                stmt.setString(1, worldName);
-                ResultSet rs = stmt.executeQuery();
-                
-                while (rs.next()) {
-                    wards.add(createWardFromResultSet(rs));
-                }
-            }
-            
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Ошибка загрузки оберегов мира: " + e.getMessage());
-        }
+        withConnection("Ошибка загрузки оберегов мира", null, conn -> {
+            PreparedStatement stmt = conn.prepare(SELECT_BY_WORLD_SQL);
+            stmt.setString(1, worldName);
+            readWards(stmt, wards);
+            return null;
+        });
         
         return wards;
     }
@@ -224,64 +233,135 @@ public class MySQLDatabase implements Database {
     public List<Ward> loadAllWards() {
         List<Ward> wards = new ArrayList<>();
         
-        try {
-            checkConnection();
-            
-            String sql = "SELECT * FROM wards";
-            
-            try (Statement stmt = connection.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
-                
+        withConnection("Ошибка загрузки всех оберегов", null, conn -> {
+            readWards(conn.prepare(SELECT_ALL_SQL), wards);
+            return null;
+        });
+        
+        return wards;
+    }
+    
+    @Override
+    public List<String> loadWardWorlds() {
+        List<String> worlds = new ArrayList<>();
+        
+        withConnection("Ошибка загрузки списка миров", null, conn -> {
+            try (ResultSet rs = conn.prepare(SELECT_WORLDS_SQL).executeQuery()) {
                 while (rs.next()) {
-                    wards.add(createWardFromResultSet(rs));
+                    worlds.add(rs.getString(1));
                 }
             }
-            
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Ошибка загрузки всех оберегов: " + e.getMessage());
-        }
+            return null;
+        });
+        
+        return worlds;
+    }
+    
+    @Override
+    public void streamWardsByWorld(String worldName, int fetchSize, Consumer<Ward> consumer) {
+        withConnection("Ошибка потоковой загрузки оберегов мира", null, conn -> {
+            // Отдельный запрос вне кэша: Integer.MIN_VALUE включает построчную передачу только для него,
+            // так что fetchSize здесь не нужен - в памяти драйвера всегда одна строка
+            try (PreparedStatement stmt = conn.getConnection().prepareStatement(SELECT_BY_WORLD_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(Integer.MIN_VALUE);
+                stmt.setString(1, worldName);
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(createWardFromResultSet(rs));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+    
+    @Override
+    public List<Ward> loadWardsNear(String worldName, int x, int z, int radius) {
+        List<Ward> wards = new ArrayList<>();
+        
+        withConnection("Ошибка загрузки оберегов рядом", null, conn -> {
+            PreparedStatement stmt = conn.prepare(SELECT_NEAR_SQL);
+            stmt.setString(1, worldName);
+            stmt.setInt(2, x - radius);
+            stmt.setInt(3, x + radius);
+            stmt.setInt(4, z - radius);
+            stmt.setInt(5, z + radius);
+            readWards(stmt, wards);
+            return null;
+        });
         
         return wards;
     }
     
     @Override
     public void deleteWard(UUID id) {
-        try {
-            checkConnection();
-            
-            String sql = "DELETE FROM wards WHERE id = ?";
+        withConnection("Ошибка удаления оберега", null, conn -> {
+            PreparedStatement stmt = conn.prepare(DELETE_SQL);
+            stmt.setString(1, id.toString());
+            stmt.executeUpdate();
+            return null;
+        });
+    }
+    
+    @Override
+    public boolean deleteWards(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return true;
+        }
+        
+        return withConnection("Ошибка пакетного удаления оберегов", false, conn -> {
+            conn.getConnection().setAutoCommit(false);
             
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            PreparedStatement stmt = conn.prepare(DELETE_SQL);
+            for (UUID id : ids) {
                 stmt.setString(1, id.toString());
-                stmt.executeUpdate();
+                stmt.addBatch();
             }
+            stmt.executeBatch();
             
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Ошибка удаления оберега: " + e.getMessage());
-        }
+            conn.getConnection().commit();
+            conn.getConnection().setAutoCommit(true);
+            return true;
+        });
     }
     
     @Override
     public int countWardsByOwner(UUID ownerUUID) {
-        try {
-            checkConnection();
+        return withConnection("Ошибка подсчета оберегов", 0, conn -> {
+            PreparedStatement stmt = conn.prepare(COUNT_BY_OWNER_SQL);
+            stmt.setString(1, ownerUUID.toString());
             
-            String sql = "SELECT COUNT(*) FROM wards WHERE owner_uuid = ?";
-            
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                stmt.setString(1, ownerUUID.toString());
-                ResultSet rs = stmt.executeQuery();
-                
-                if (rs.next()) {
-                    return rs.getInt(1);
-                }
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        });
+    }
+    
+    /**
+     * Прочитать все строки результата запроса
+     */
+    private void readWards(PreparedStatement stmt, List<Ward> wards) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                wards.add(createWardFromResultSet(rs));
             }
-            
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Ошибка подсчета оберегов: " + e.getMessage());
         }
-        
-        return 0;
+    }
+    
+    private void bindWard(PreparedStatement stmt, Ward ward) throws SQLException {
+        stmt.setString(1, ward.getId().toString());
+        stmt.setString(2, ward.getOwnerUUID().toString());
+        stmt.setString(3, ward.getWorld());
+        stmt.setInt(4, ward.getX());
+        stmt.setInt(5, ward.getY());
+        stmt.setInt(6, ward.getZ());
+        stmt.setInt(7, ward.getTier());
+        stmt.setInt(8, ward.getFuel());
+        stmt.setLong(9, ward.getBurnEndTime());
+        stmt.setLong(10, ward.getNextDegradeTime());
+        stmt.setLong(11, ward.getCreatedAt());
     }
     
     private Ward createWardFromResultSet(ResultSet rs) throws SQLException {
@@ -299,4 +379,12 @@ public class MySQLDatabase implements Database {
             rs.getLong("created_at")
         );
     }
+    
+    /**
+     * Работа на соединении из пула
+     */
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T run(PooledConnection conn) throws SQLException;
+    }
 }
@@ -1,19 +1,60 @@
 package dev.keelbismark.shoophantom.data;
 
 import org.bukkit.Location;
+import org.bukkit.configuration.file.FileConfiguration;
 
 import dev.keelbismark.shoophantom.ShooPhantom;
 
 import java.io.File;
 import java.sql.*;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+/**
+ * SQLite backend.
+ * <p>
+ * All writes go through a single writer thread that owns the write connection, so
+ * the main thread and async tasks never interleave transactions on one handle.
+ * Single-ward writes are queued and return immediately; the queue is bounded by
+ * {@code database.sqlite.writer-queue-size} and only then does the caller wait.
+ * Batch writes block until committed, since the write-behind flush needs the result,
+ * and {@link #flush()} waits for everything queued so far. Reads borrow query-only
+ * connections from a small pool, so async loaders and the main thread never share a
+ * handle; in WAL mode they proceed concurrently with the writer. At most
+ * {@value #MAX_IDLE_READERS} idle read connections are kept, extra ones are closed
+ * when returned, so short-lived scheduler threads do not leak file handles.
+ */
 public class SQLiteDatabase implements Database {
     
+    private static final String SAVE_SQL = "INSERT OR REPLACE INTO wards " +
+            "(id, owner_uuid, world, x, y, z, tier, fuel, burn_end_time, next_degrade_time, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM wards WHERE id = ?";
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_IDLE_READERS = 4;
+    
+    private static final Set<String> JOURNAL_MODES = Set.of("DELETE", "TRUNCATE", "PERSIST", "MEMORY", "WAL", "OFF");
+    private static final Set<String> SYNCHRONOUS_MODES = Set.of("OFF", "NORMAL", "FULL", "EXTRA");
+    
     private final ShooPhantom plugin;
     private Connection connection;
+    private final Deque<Connection> idleReaders = new ArrayDeque<>(); // Под блокировкой самого списка
+    private volatile boolean closed;
+    private ThreadPoolExecutor writer;
+    private String url;
     
     public SQLiteDatabase(ShooPhantom plugin) {
         this.plugin = plugin;
@@ -27,14 +68,38 @@ public class SQLiteDatabase implements Database {
                 dataFolder.mkdirs();
             }
             
-            String filename = plugin.getConfig().getString("database.sqlite.file", "wards.db");
+            FileConfiguration config = plugin.getConfig();
+            String filename = config.getString("database.sqlite.file", "wards.db");
             File dbFile = new File(dataFolder, filename);
+            url = "jdbc:sqlite:" + dbFile.getAbsolutePath();
             
             Class.forName("org.sqlite.JDBC");
-            connection = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
+            connection = DriverManager.getConnection(url);
+            applyPragmas(connection, config, true);
             
             createTables();
             
+            int queueSize = Math.max(1, config.getInt("database.sqlite.writer-queue-size", 1024));
+            writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueSize),
+                    r -> {
+                        Thread thread = new Thread(r, "ShooPhantom-SQLite-Writer");
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    (task, executor) -> {
+                        // Очередь заполнена - ждём, а не выполняем запись в чужом потоке
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException("Поток записи SQLite остановлен");
+                        }
+                        try {
+                            executor.getQueue().put(task);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException(e);
+                        }
+                    });
+            
             plugin.getLogger().info("SQLite база данных инициализирована: " + dbFile.getName());
             return true;
             
@@ -53,6 +118,77 @@ public class SQLiteDatabase implements Database {
         }
     }
     
+    /**
+     * Применить настройки SQLite из database.sqlite
+     */
+    private void applyPragmas(Connection conn, FileConfiguration config, boolean writable) throws SQLException {
+        String journalMode = config.getString("database.sqlite.journal-mode", "WAL").toUpperCase(Locale.ROOT);
+        String synchronous = config.getString("database.sqlite.synchronous", "NORMAL").toUpperCase(Locale.ROOT);
+        long mmapSize = config.getLong("database.sqlite.mmap-size-mb", 64) * 1024L * 1024L;
+        long cacheSizeKb = config.getLong("database.sqlite.cache-size-kb", 8192);
+        int busyTimeout = config.getInt("database.sqlite.busy-timeout-ms", 5000);
+        
+        if (!JOURNAL_MODES.contains(journalMode)) {
+            plugin.getLogger().warning("Неизвестный database.sqlite.journal-mode: " + journalMode + ", используется WAL");
+            journalMode = "WAL";
+        }
+        if (!SYNCHRONOUS_MODES.contains(synchronous)) {
+            plugin.getLogger().warning("Неизвестный database.sqlite.synchronous: " + synchronous + ", используется NORMAL");
+            synchronous = "NORMAL";
+        }
+        
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeout);
+            if (writable) {
+                // journal_mode хранится в файле базы, достаточно установить на соединении записи
+                stmt.execute("PRAGMA journal_mode = " + journalMode);
+            }
+            stmt.execute("PRAGMA synchronous = " + synchronous);
+            stmt.execute("PRAGMA mmap_size = " + mmapSize);
+            stmt.execute("PRAGMA cache_size = " + (-cacheSizeKb));
+            if (!writable) {
+                stmt.execute("PRAGMA query_only = 1");
+            }
+        }
+    }
+    
+    /**
+     * Взять соединение чтения из пула (новое, если свободных нет)
+     */
+    private Reader reader() throws SQLException {
+        Connection conn;
+        synchronized (idleReaders) {
+            conn = idleReaders.pollFirst();
+        }
+        if (conn == null || conn.isClosed()) {
+            conn = DriverManager.getConnection(url);
+            try {
+                applyPragmas(conn, plugin.getConfig(), false);
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+        }
+        return new Reader(conn);
+    }
+    
+    /**
+     * Вернуть соединение чтения в пул или закрыть его, если пул полон
+     */
+    private void release(Connection conn) {
+        synchronized (idleReaders) {
+            if (!closed && idleReaders.size() < MAX_IDLE_READERS) {
+                idleReaders.addFirst(conn);
+                return;
+            }
+        }
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Ошибка закрытия соединения чтения SQLite: " + e.getMessage());
+        }
+    }
+    
     private void createTables() throws SQLException {
         String sql = "CREATE TABLE IF NOT EXISTS wards (" +
                 "id VARCHAR(36) PRIMARY KEY," +
@@ -77,7 +213,25 @@ public class SQLiteDatabase implements Database {
     
     @Override
     public void close() {
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+                    plugin.getLogger().severe("Поток записи SQLite не завершился за 30 секунд");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        closed = true;
         try {
+            synchronized (idleReaders) {
+                for (Connection conn : idleReaders) {
+                    conn.close();
+                }
+                idleReaders.clear();
+            }
             if (connection != null && !connection.isClosed()) {
                 connection.close();
                 plugin.getLogger().info("SQLite подключение к базе данных успешно закрыто");
@@ -88,37 +242,119 @@ public class SQLiteDatabase implements Database {
         }
     }
     
-    @Override
-    public void saveWard(Ward ward) {
-        String sql = "INSERT OR REPLACE INTO wards " +
-                "(id, owner_uuid, world, x, y, z, tier, fuel, burn_end_time, next_degrade_time, created_at) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    /**
+     * Поставить запись в очередь потока записи, не дожидаясь её выполнения
+     * @param errorMessage message logged if the write fails
+     * @param task write to run on the write connection
+     */
+    private void enqueue(String errorMessage, WriteTask task) {
+        try {
+            writer.execute(() -> {
+                try {
+                    task.run(connection);
+                } catch (SQLException e) {
+                    plugin.getLogger().severe(errorMessage + ": " + e.getMessage());
+                    e.printStackTrace();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            plugin.getLogger().severe(errorMessage + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Дождаться записи всех операций, поставленных в очередь до вызова
+     */
+    public void flush() {
+        write("Ошибка ожидания очереди записи SQLite", conn -> { });
+    }
+    
+    /**
+     * Выполнить запись в потоке записи и дождаться её завершения
+     * @param errorMessage message logged if the write fails
+     * @param task write to run on the write connection
+     * @return true if the write has been committed
+     */
+    private boolean write(String errorMessage, WriteTask task) {
+        Future<?> future;
+        try {
+            future = writer.submit(() -> {
+                task.run(connection);
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            plugin.getLogger().severe(errorMessage + ": " + e.getMessage());
+            return false;
+        }
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, ward.getId().toString());
-            stmt.setString(2, ward.getOwnerUUID().toString());
-            stmt.setString(3, ward.getWorld());
-            stmt.setInt(4, ward.getX());
-            stmt.setInt(5, ward.getY());
-            stmt.setInt(6, ward.getZ());
-            stmt.setInt(7, ward.getTier());
-            stmt.setInt(8, ward.getFuel());
-            stmt.setLong(9, ward.getBurnEndTime());
-            stmt.setLong(10, ward.getNextDegradeTime());
-            stmt.setLong(11, ward.getCreatedAt());
-            stmt.executeUpdate();
-            
+        try {
+            future.get();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            plugin.getLogger().severe(errorMessage + ": " + e.getCause().getMessage());
+            e.getCause().printStackTrace();
+        }
+        return false;
+    }
+    
+    /**
+     * Выполнить пакет в одной транзакции (только в потоке записи)
+     */
+    private void inTransaction(Connection conn, WriteTask task) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            task.run(conn);
+            conn.commit();
         } catch (SQLException e) {
-            plugin.getLogger().severe("Ошибка сохранения оберега " + ward.getId() + " в базу данных: " + e.getMessage());
-            e.printStackTrace();
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+    
+    @Override
+    public void saveWard(Ward ward) {
+        enqueue("Ошибка сохранения оберега " + ward.getId() + " в базу данных", conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(SAVE_SQL)) {
+                bindWard(stmt, ward);
+                stmt.executeUpdate();
+            }
+        });
+    }
+    
+    @Override
+    public boolean saveWards(Collection<Ward> wards) {
+        if (wards.isEmpty()) {
+            return true;
         }
+        
+        return write("Ошибка пакетного сохранения " + wards.size() + " оберегов", conn -> inTransaction(conn, c -> {
+            try (PreparedStatement stmt = c.prepareStatement(SAVE_SQL)) {
+                int pending = 0;
+                for (Ward ward : wards) {
+                    bindWard(stmt, ward);
+                    stmt.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        stmt.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    stmt.executeBatch();
+                }
+            }
+        }));
     }
     
     @Override
     public Ward loadWard(UUID id) {
         String sql = "SELECT * FROM wards WHERE id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Reader reader = reader();
+             PreparedStatement stmt = reader.connection().prepareStatement(sql)) {
             stmt.setString(1, id.toString());
             ResultSet rs = stmt.executeQuery();
             
@@ -138,7 +374,8 @@ public class SQLiteDatabase implements Database {
     public Ward loadWardByLocation(Location location) {
         String sql = "SELECT * FROM wards WHERE world = ? AND x = ? AND y = ? AND z = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Reader reader = reader();
+             PreparedStatement stmt = reader.connection().prepareStatement(sql)) {
             stmt.setString(1, location.getWorld().getName());
             stmt.setInt(2, location.getBlockX());
             stmt.setInt(3, location.getBlockY());
@@ -150,8 +387,8 @@ public class SQLiteDatabase implements Database {
             }
             
         } catch (SQLException e) {
-            plugin.getLogger().severe("Ошибка загрузки оберега по локации " + 
-                location.getWorld().getName() + "," + location.getBlockX() + "," + 
+            plugin.getLogger().severe("Ошибка загрузки оберега по локации " +
+                location.getWorld().getName() + "," + location.getBlockX() + "," +
                 location.getBlockY() + "," + location.getBlockZ() + ": " + e.getMessage());
             e.printStackTrace();
         }
@@ -164,7 +401,8 @@ public class SQLiteDatabase implements Database {
         List<Ward> wards = new ArrayList<>();
         String sql = "SELECT * FROM wards WHERE owner_uuid = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Reader reader = reader();
+             PreparedStatement stmt = reader.connection().prepareStatement(sql)) {
             stmt.setString(1, ownerUUID.toString());
             ResultSet rs = stmt.executeQuery();
             
@@ -185,7 +423,8 @@ public class SQLiteDatabase implements Database {
         List<Ward> wards = new ArrayList<>();
         String sql = "SELECT * FROM wards WHERE world = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Reader reader = reader();
+             PreparedStatement stmt = reader.connection().prepareStatement(sql)) {
             stmt.setString(1, worldName);
             ResultSet rs = stmt.executeQuery();
             
@@ -206,7 +445,8 @@ public class SQLiteDatabase implements Database {
         List<Ward> wards = new ArrayList<>();
         String sql = "SELECT * FROM wards";
         
-        try (Statement stmt = connection.createStatement();
+        try (Reader reader = reader();
+             Statement stmt = reader.connection().createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
@@ -222,24 +462,107 @@ public class SQLiteDatabase implements Database {
     }
     
     @Override
-    public void deleteWard(UUID id) {
-        String sql = "DELETE FROM wards WHERE id = ?";
+    public List<String> loadWardWorlds() {
+        List<String> worlds = new ArrayList<>();
+        String sql = "SELECT DISTINCT world FROM wards";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, id.toString());
-            stmt.executeUpdate();
+        try (Reader reader = reader();
+             Statement stmt = reader.connection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                worlds.add(rs.getString(1));
+            }
+            
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Ошибка загрузки списка миров из базы данных: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return worlds;
+    }
+    
+    @Override
+    public void streamWardsByWorld(String worldName, int fetchSize, Consumer<Ward> consumer) {
+        String sql = "SELECT * FROM wards WHERE world = ?";
+        
+        try (Reader reader = reader();
+             PreparedStatement stmt = reader.connection().prepareStatement(sql)) {
+            stmt.setFetchSize(fetchSize);
+            stmt.setString(1, worldName);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(createWardFromResultSet(rs));
+                }
+            }
+            
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Ошибка потоковой загрузки оберегов мира '" + worldName + "': " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    @Override
+    public List<Ward> loadWardsNear(String worldName, int x, int z, int radius) {
+        List<Ward> wards = new ArrayList<>();
+        String sql = "SELECT * FROM wards WHERE world = ? AND x BETWEEN ? AND ? AND z BETWEEN ? AND ?";
+        
+        try (Reader reader = reader();
+             PreparedStatement stmt = reader.connection().prepareStatement(sql)) {
+            stmt.setString(1, worldName);
+            stmt.setInt(2, x - radius);
+            stmt.setInt(3, x + radius);
+            stmt.setInt(4, z - radius);
+            stmt.setInt(5, z + radius);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    wards.add(createWardFromResultSet(rs));
+                }
+            }
             
         } catch (SQLException e) {
-            plugin.getLogger().severe("Ошибка удаления оберега с ID " + id + " из базы данных: " + e.getMessage());
+            plugin.getLogger().severe("Ошибка загрузки оберегов рядом с " + x + "," + z + ": " + e.getMessage());
             e.printStackTrace();
         }
+        
+        return wards;
+    }
+    
+    @Override
+    public void deleteWard(UUID id) {
+        enqueue("Ошибка удаления оберега с ID " + id + " из базы данных", conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+                stmt.setString(1, id.toString());
+                stmt.executeUpdate();
+            }
+        });
+    }
+    
+    @Override
+    public boolean deleteWards(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return true;
+        }
+        
+        return write("Ошибка пакетного удаления " + ids.size() + " оберегов", conn -> inTransaction(conn, c -> {
+            try (PreparedStatement stmt = c.prepareStatement(DELETE_SQL)) {
+                for (UUID id : ids) {
+                    stmt.setString(1, id.toString());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        }));
     }
     
     @Override
     public int countWardsByOwner(UUID ownerUUID) {
         String sql = "SELECT COUNT(*) FROM wards WHERE owner_uuid = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Reader reader = reader();
+             PreparedStatement stmt = reader.connection().prepareStatement(sql)) {
             stmt.setString(1, ownerUUID.toString());
             ResultSet rs = stmt.executeQuery();
             
@@ -255,6 +578,20 @@ public class SQLiteDatabase implements Database {
         return 0;
     }
     
+    private void bindWard(PreparedStatement stmt, Ward ward) throws SQLException {
+        stmt.setString(1, ward.getId().toString());
+        stmt.setString(2, ward.getOwnerUUID().toString());
+        stmt.setString(3, ward.getWorld());
+        stmt.setInt(4, ward.getX());
+        stmt.setInt(5, ward.getY());
+        stmt.setInt(6, ward.getZ());
+        stmt.setInt(7, ward.getTier());
+        stmt.setInt(8, ward.getFuel());
+        stmt.setLong(9, ward.getBurnEndTime());
+        stmt.setLong(10, ward.getNextDegradeTime());
+        stmt.setLong(11, ward.getCreatedAt());
+    }
+    
     private Ward createWardFromResultSet(ResultSet rs) throws SQLException {
         return new Ward(
             UUID.fromString(rs.getString("id")),
@@ -270,4 +607,33 @@ public class SQLiteDatabase implements Database {
             rs.getLong("created_at")
         );
     }
+    
+    /**
+     * Соединение чтения, взятое из пула до конца запроса
+     */
+    private final class Reader implements AutoCloseable {
+        
+        private final Connection conn;
+        
+        private Reader(Connection conn) {
+            this.conn = conn;
+        }
+        
+        Connection connection() {
+            return conn;
+        }
+        
+        @Override
+        public void close() {
+            release(conn);
+        }
+    }
+    
+    /**
+     * Операция записи на соединении записи
+     */
+    @FunctionalInterface
+    private interface WriteTask {
+        void run(Connection conn) throws SQLException;
+    }
 }
@@ -0,0 +1,149 @@
+package dev.keelbismark.shoophantom.data;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Protection coverage cache of a single world.
+ * <p>
+ * For every 16x16x16 chunk section that has been queried it remembers the highest
+ * tier of an active ward whose radius covers the whole section and the highest tier
+ * of an active ward that reaches at least part of it. Most {@code isProtected}
+ * queries can then be answered without any distance math; only sections on the
+ * edge of a protection zone still need an exact check.
+ * <p>
+ * Each entry is packed into a single long: bits 0-1 hold the touching tier,
+ * bits 2-3 the fully covering tier, bit 4 marks the entry as computed and the
+ * remaining bits hold the time (ms) until which the entry is valid, i.e. the
+ * moment the first contributing ward burns out its last membrane.
+ */
+public class WardCoverageCache {
+
+    public static final int NOT_COVERED = 0;
+    public static final int COVERED = 1;
+    public static final int UNKNOWN = -1; // Нужна точная проверка
+
+    private static final long NO_EXPIRY = (1L << 58) - 1;
+    private static final long COMPUTED = 1L << 4;
+
+    private final Map<Long, ChunkCoverage> chunks;
+
+    public WardCoverageCache() {
+        this.chunks = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Ответить на запрос защиты по кэшу
+     * @param x block X
+     * @param y block Y
+     * @param z block Z
+     * @param minTier minimum tier required
+     * @param now current time in ms
+     * @return {@link #COVERED}, {@link #NOT_COVERED} or {@link #UNKNOWN}
+     */
+    public int lookup(int x, int y, int z, int minTier, long now) {
+        ChunkCoverage chunk = chunks.get(chunkKey(x >> 4, z >> 4));
+        if (chunk == null) {
+            return UNKNOWN;
+        }
+
+        long entry = chunk.get(y >> 4);
+        if ((entry & COMPUTED) == 0 || (entry >>> 5) <= now) {
+            return UNKNOWN;
+        }
+
+        int fullTier = (int) (entry >> 2) & 3;
+        int touchTier = (int) entry & 3;
+
+        if (fullTier >= minTier) {
+            return COVERED;
+        }
+        if (touchTier < minTier) {
+            return NOT_COVERED;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Сохранить покрытие секции
+     * @param sectionX section X (block X >> 4)
+     * @param sectionY section Y (block Y >> 4)
+     * @param sectionZ section Z (block Z >> 4)
+     * @param fullTier highest tier covering the whole section (0 = none)
+     * @param touchTier highest tier reaching the section (0 = none)
+     * @param validUntil time in ms when the entry expires, or Long.MAX_VALUE
+     */
+    public void store(int sectionX, int sectionY, int sectionZ, int fullTier, int touchTier, long validUntil) {
+        long expiry = Math.min(validUntil, NO_EXPIRY);
+        long entry = (expiry << 5) | COMPUTED | ((long) fullTier << 2) | touchTier;
+
+        chunks.computeIfAbsent(chunkKey(sectionX, sectionZ), k -> new ChunkCoverage())
+                .set(sectionY, entry);
+    }
+
+    /**
+     * Сбросить покрытие всех чанков в прямоугольнике (включительно)
+     */
+    public void invalidate(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+            for (int cz = minChunkZ; cz <= maxChunkZ; cz++) {
+                chunks.remove(chunkKey(cx, cz));
+            }
+        }
+    }
+
+    /**
+     * Удалить чанк из кэша (при выгрузке)
+     */
+    public void evictChunk(int chunkX, int chunkZ) {
+        chunks.remove(chunkKey(chunkX, chunkZ));
+    }
+
+    public void clear() {
+        chunks.clear();
+    }
+
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Покрытие секций одного чанка, массив растёт по мере запросов
+     */
+    private static final class ChunkCoverage {
+
+        private int minSection;
+        private long[] sections;
+
+        synchronized long get(int sectionY) {
+            if (sections == null) {
+                return 0;
+            }
+            int idx = sectionY - minSection;
+            return idx >= 0 && idx < sections.length ? sections[idx] : 0;
+        }
+
+        synchronized void set(int sectionY, long entry) {
+            if (sections == null) {
+                minSection = sectionY;
+                sections = new long[1];
+            } else if (sectionY < minSection) {
+                long[] grown = new long[sections.length + (minSection - sectionY)];
+                System.arraycopy(sections, 0, grown, minSection - sectionY, sections.length);
+                sections = grown;
+                minSection = sectionY;
+            } else if (sectionY - minSection >= sections.length) {
+                sections = Arrays.copyOf(sections, sectionY - minSection + 1);
+            }
+            sections[sectionY - minSection] = entry;
+        }
+    }
+}
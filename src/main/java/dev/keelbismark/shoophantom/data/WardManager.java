@@ -1,14 +1,19 @@
 package dev.keelbismark.shoophantom.data;
 
+import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 
 import dev.keelbismark.shoophantom.ShooPhantom;
+import dev.keelbismark.shoophantom.mechanics.FuelManager;
 import dev.keelbismark.shoophantom.mechanics.TierCalculator;
+import dev.keelbismark.shoophantom.mechanics.WardDisplayManager;
+import dev.keelbismark.shoophantom.utils.DueTimeQueue;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Manages all wards in the plugin.
@@ -19,33 +24,323 @@ public class WardManager {
     private final ShooPhantom plugin;
     private final Map<UUID, Ward> wards; // Кэш всех оберегов (ID -> Ward)
     private final Map<String, Set<UUID>> wardsByWorld; // Обереги по мирам (worldName -> Set<wardID>)
+    private final Map<String, WardSpatialIndex> spatialIndexes; // Пространственный индекс по мирам
+    private final Map<String, WardCoverageCache> coverageCaches; // Кэш покрытия секций по мирам
+    private final Set<UUID> dirtyWards; // Изменённые с последнего автосохранения
+    private final DueTimeQueue fuelQueue; // Обереги по времени окончания горения мембраны
+    private final DueTimeQueue degradeQueue; // Обереги Tier 3 по времени выгорания мачты
+    private final Map<String, Map<Long, Set<UUID>>> awaitingChunks; // Обереги, ждущие загрузки чанков структуры
+    private final Map<UUID, Set<Long>> awaitingByWard; // Обратный индекс: оберег -> ожидаемые чанки
+    private final AtomicLong avoidedChunkLoads; // Синхронные загрузки чанков, которых удалось избежать
+    private final Set<String> loadedWorlds; // Миры, полностью загруженные при асинхронной загрузке
+    private volatile Set<String> wardWorlds; // Миры, в которых есть обереги (null - список ещё не прочитан)
+    private final Set<UUID> removedWhileLoading; // Удалённые до того, как загрузчик до них дошёл
+    private final Map<String, WardResidency> residencies; // Загруженные регионы по мирам (ленивый режим)
+    private final boolean lazyResidency;
+    private final long residencyStartedAt;
+    private volatile boolean loadingComplete;
+    private volatile int worldsTotal;
+    private volatile long loadStartedAt;
+    private volatile long loadFinishedAt;
+    private final int indexCellSize;
     private final TierCalculator tierCalculator;
     
     public WardManager(ShooPhantom plugin) {
         this.plugin = plugin;
         this.wards = new ConcurrentHashMap<>();
         this.wardsByWorld = new ConcurrentHashMap<>();
+        this.spatialIndexes = new ConcurrentHashMap<>();
+        this.coverageCaches = new ConcurrentHashMap<>();
+        this.dirtyWards = ConcurrentHashMap.newKeySet();
+        this.fuelQueue = new DueTimeQueue();
+        this.degradeQueue = new DueTimeQueue();
+        this.awaitingChunks = new ConcurrentHashMap<>();
+        this.awaitingByWard = new ConcurrentHashMap<>();
+        this.avoidedChunkLoads = new AtomicLong();
+        this.loadedWorlds = ConcurrentHashMap.newKeySet();
+        this.removedWhileLoading = ConcurrentHashMap.newKeySet();
+        this.residencies = new ConcurrentHashMap<>();
+        this.lazyResidency = plugin.getConfigManager().isLazyResidencyEnabled();
+        this.residencyStartedAt = System.currentTimeMillis();
+        this.indexCellSize = getMaxRadius();
         this.tierCalculator = new TierCalculator(plugin);
         
-        loadAllWards();
+        if (lazyResidency) {
+            // Обереги загружаются по регионам вместе с чанками, см. initResidency()
+            loadStartedAt = residencyStartedAt;
+            loadFinishedAt = residencyStartedAt;
+            loadingComplete = true;
+        } else if (plugin.getConfigManager().isAsyncLoadingEnabled()) {
+            loadAllWardsAsync();
+        } else {
+            loadAllWards();
+        }
     }
     
     /**
      * Загрузка всех оберегов из БД
      */
     private void loadAllWards() {
+        loadStartedAt = System.currentTimeMillis();
         List<Ward> loadedWards = plugin.getDatabase().loadAllWards();
         
         for (Ward ward : loadedWards) {
-            wards.put(ward.getId(), ward);
-            
-            wardsByWorld.computeIfAbsent(ward.getWorld(), k -> ConcurrentHashMap.newKeySet())
-                    .add(ward.getId());
+            indexWard(ward);
         }
         
+        loadFinishedAt = System.currentTimeMillis();
+        loadingComplete = true;
         plugin.getLogger().info("Загружено " + wards.size() + " оберегов из базы данных");
     }
     
+    /**
+     * Асинхронная загрузка оберегов по мирам
+     * Until a world is fully loaded, lookups in it use the configured fallback.
+     */
+    private void loadAllWardsAsync() {
+        loadStartedAt = System.currentTimeMillis();
+        int fetchSize = plugin.getConfigManager().getLoadingFetchSize();
+        
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                List<String> worlds = plugin.getDatabase().loadWardWorlds();
+                worldsTotal = worlds.size();
+                wardWorlds = Set.copyOf(worlds); // Миры без оберегов загружены сразу
+                
+                for (String worldName : worlds) {
+                    plugin.getDatabase().streamWardsByWorld(worldName, fetchSize, ward -> {
+                        // Оберег мог быть создан, изменён (updateWardReference его индексирует) или удалён, пока шла загрузка
+                        if (!wards.containsKey(ward.getId()) && !removedWhileLoading.contains(ward.getId())) {
+                            indexWard(ward);
+                        }
+                    });
+                    loadedWorlds.add(worldName);
+                }
+            } catch (Exception e) {
+                plugin.getLogger().severe("Ошибка асинхронной загрузки оберегов: " + e.getMessage());
+                e.printStackTrace();
+            } finally {
+                loadFinishedAt = System.currentTimeMillis();
+                loadingComplete = true;
+                removedWhileLoading.clear();
+                plugin.getLogger().info("Загружено " + wards.size() + " оберегов из базы данных за "
+                        + (loadFinishedAt - loadStartedAt) + " мс");
+            }
+        });
+    }
+    
+    /**
+     * Загружены ли в кэш обереги, которые могут защищать указанный блок
+     */
+    private boolean isAreaLoaded(String worldName, int blockX, int blockZ) {
+        if (lazyResidency) {
+            WardResidency residency = residencies.get(worldName);
+            return residency != null && residency.isResidentAround(blockX, blockZ);
+        }
+        if (loadingComplete || loadedWorlds.contains(worldName)) {
+            return true;
+        }
+        Set<String> worlds = wardWorlds;
+        return worlds != null && !worlds.contains(worldName);
+    }
+    
+    /**
+     * Учесть чанки, уже загруженные к моменту включения плагина (ленивый режим)
+     */
+    public void initResidency() {
+        if (!lazyResidency) {
+            return;
+        }
+        
+        for (World world : plugin.getServer().getWorlds()) {
+            for (Chunk chunk : world.getLoadedChunks()) {
+                onChunkLoad(world.getName(), chunk.getX(), chunk.getZ());
+            }
+        }
+    }
+    
+    /**
+     * Загрузка чанка - подгрузить обереги нужных регионов (ленивый режим)
+     */
+    public void onChunkLoad(String worldName, int chunkX, int chunkZ) {
+        resumeAwaiting(worldName, chunkX, chunkZ);
+        
+        if (!lazyResidency) {
+            return;
+        }
+        
+        WardResidency residency = residencies.computeIfAbsent(worldName, k -> new WardResidency(getMaxRadius()));
+        for (long region : residency.chunkLoaded(chunkX, chunkZ)) {
+            loadRegion(worldName, residency, region);
+        }
+    }
+    
+    /**
+     * Асинхронно загрузить обереги региона 512x512
+     */
+    private void loadRegion(String worldName, WardResidency residency, long region) {
+        int regionX = WardResidency.regionX(region);
+        int regionZ = WardResidency.regionZ(region);
+        int half = 1 << (WardResidency.REGION_SHIFT - 1);
+        int centerX = (regionX << WardResidency.REGION_SHIFT) + half;
+        int centerZ = (regionZ << WardResidency.REGION_SHIFT) + half;
+        
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            FuelManager fuelManager = plugin.getFuelManager();
+            boolean loaded = false;
+            
+            try {
+                for (Ward ward : plugin.getDatabase().loadWardsNear(worldName, centerX, centerZ, half)) {
+                    boolean inRegion = (ward.getX() >> WardResidency.REGION_SHIFT) == regionX
+                            && (ward.getZ() >> WardResidency.REGION_SHIFT) == regionZ;
+                    // Оберег, уже попавший в кэш через updateWardReference, проиндексирован там же
+                    if (!inRegion || wards.containsKey(ward.getId())) {
+                        continue;
+                    }
+                    
+                    // Топливо продолжало гореть, пока оберег был выгружен
+                    Ward current = fuelManager != null ? fuelManager.catchUpFuel(ward, residencyStartedAt) : ward;
+                    indexWard(current);
+                    if (current != ward) {
+                        dirtyWards.add(current.getId());
+                    }
+                }
+                loaded = true;
+            } catch (Exception e) {
+                plugin.getLogger().severe("Ошибка загрузки оберегов региона " + regionX + ", " + regionZ
+                        + " мира " + worldName + ": " + e.getMessage());
+            } finally {
+                if (loaded) {
+                    residency.markResident(region);
+                } else {
+                    residency.markFailed(region);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Выгрузить из памяти обереги регионов, которые давно не нужны (ленивый режим)
+     * Dirty wards are persisted first and dropped only once the save commits. Without
+     * write-behind the save runs off the main thread and eviction finishes on the next tick.
+     * @return number of wards selected for eviction
+     */
+    public int evictIdleRegions() {
+        if (!lazyResidency) {
+            return 0;
+        }
+        
+        long now = System.currentTimeMillis();
+        long grace = plugin.getConfigManager().getResidencyEvictSeconds() * 1000L;
+        boolean writeBehind = plugin.getConfigManager().isWriteBehindEnabled();
+        int selected = 0;
+        
+        for (Map.Entry<String, WardResidency> entry : residencies.entrySet()) {
+            WardResidency residency = entry.getValue();
+            List<Long> idle = residency.takeIdle(now, grace);
+            if (idle.isEmpty()) {
+                continue;
+            }
+            
+            Set<Long> idleRegions = new HashSet<>(idle);
+            List<Ward> toEvict = new ArrayList<>();
+            List<Ward> toSave = new ArrayList<>();
+            
+            Set<UUID> worldWards = wardsByWorld.get(entry.getKey());
+            if (worldWards != null) {
+                for (UUID id : worldWards) {
+                    Ward ward = wards.get(id);
+                    if (ward != null && idleRegions.contains(WardResidency.regionAt(ward.getX(), ward.getZ()))) {
+                        toEvict.add(ward);
+                        if (dirtyWards.remove(id)) {
+                            toSave.add(ward);
+                        }
+                    }
+                }
+            }
+            selected += toEvict.size();
+            
+            if (toSave.isEmpty() || writeBehind) {
+                // Очередь записи принимает пакет сразу
+                boolean saved = toSave.isEmpty() || plugin.getDatabase().saveWards(toSave);
+                finishEviction(residency, idle, toEvict, toSave, saved);
+            } else {
+                plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+                    boolean saved = plugin.getDatabase().saveWards(toSave);
+                    plugin.getServer().getScheduler().runTask(plugin,
+                            () -> finishEviction(residency, idle, toEvict, toSave, saved));
+                });
+            }
+        }
+        
+        return selected;
+    }
+    
+    /**
+     * Завершить выгрузку регионов после сохранения их изменённых оберегов
+     */
+    private void finishEviction(WardResidency residency, List<Long> regions, List<Ward> toEvict,
+                                List<Ward> toSave, boolean saved) {
+        long now = System.currentTimeMillis();
+        if (!saved) {
+            // Изменения остаются в памяти - их сохранит автосохранение, выгрузка повторится позже
+            for (Ward ward : toSave) {
+                dirtyWards.add(ward.getId());
+            }
+            for (long region : regions) {
+                residency.retryIdle(region, now);
+            }
+            plugin.getLogger().warning("Не удалось сохранить " + toSave.size()
+                    + " оберегов перед выгрузкой регионов - обереги оставлены в памяти");
+            return;
+        }
+        
+        // Обереги, изменённые во время сохранения, держат свой регион в памяти
+        Set<Long> keep = new HashSet<>();
+        for (Ward ward : toEvict) {
+            if (dirtyWards.contains(ward.getId())) {
+                keep.add(WardResidency.regionAt(ward.getX(), ward.getZ()));
+            }
+        }
+        
+        Set<Long> released = new HashSet<>();
+        for (long region : regions) {
+            if (keep.contains(region)) {
+                residency.retryIdle(region, now);
+            } else if (residency.release(region)) {
+                released.add(region);
+            }
+        }
+        
+        int evicted = 0;
+        for (Ward ward : toEvict) {
+            Ward current = wards.get(ward.getId());
+            if (current != null && released.contains(WardResidency.regionAt(ward.getX(), ward.getZ()))) {
+                unindexWard(current);
+                evicted++;
+            }
+        }
+        
+        if (evicted > 0 && plugin.getConfigManager().isDebugEnabled()) {
+            plugin.getLogger().info("Выгружено из памяти " + evicted + " оберегов неактивных регионов");
+        }
+    }
+    
+    /**
+     * Количество регионов, чьи обереги в памяти (ленивый режим)
+     */
+    public int getResidentRegionCount() {
+        int count = 0;
+        for (WardResidency residency : residencies.values()) {
+            count += residency.getResidentCount();
+        }
+        return count;
+    }
+    
+    public boolean isLazyResidency() {
+        return lazyResidency;
+    }
+    
     /**
      * Creates a new ward for the specified player at the given location.
      * Checks player limits, calculates tier based on structure, and validates permissions.
@@ -83,36 +378,299 @@ public class WardManager {
         }
 
         // Сохранение
-        wards.put(ward.getId(), ward);
-        wardsByWorld.computeIfAbsent(location.getWorld().getName(), k -> ConcurrentHashMap.newKeySet())
-                .add(ward.getId());
+        indexWard(ward);
+        dirtyWards.add(ward.getId());
         plugin.getDatabase().saveWard(ward);
 
         return ward;
     }
     
+    /**
+     * Добавить оберег в кэш и индексы
+     */
+    private void indexWard(Ward ward) {
+        wards.put(ward.getId(), ward);
+        wardsByWorld.computeIfAbsent(ward.getWorld(), k -> ConcurrentHashMap.newKeySet())
+                .add(ward.getId());
+        spatialIndexes.computeIfAbsent(ward.getWorld(), k -> newSpatialIndex())
+                .add(ward);
+        scheduleFuel(ward);
+        scheduleDegradation(ward);
+        invalidateCoverage(ward);
+        refreshDisplays(ward);
+    }
+    
+    /**
+     * Перерисовать display-визуал оберега (если выбран этот способ отрисовки)
+     */
+    private void refreshDisplays(Ward ward) {
+        WardDisplayManager displays = plugin.getWardDisplayManager();
+        if (displays != null) {
+            displays.update(ward.getId());
+        }
+    }
+    
+    /**
+     * Запланировать обработку топлива на момент окончания горения
+     */
+    private void scheduleFuel(Ward ward) {
+        if (ward.getBurnEndTime() > 0) {
+            fuelQueue.schedule(ward.getId(), ward.getBurnEndTime());
+        } else if (ward.getFuel() > 0) {
+            fuelQueue.schedule(ward.getId(), 0); // Топливо есть, но не горит - разжечь сразу
+        } else {
+            fuelQueue.cancel(ward.getId()); // Пустой и погасший - ждать нечего
+        }
+    }
+    
+    /**
+     * Забрать обереги, у которых к этому моменту догорела мембрана
+     * Returned wards are unscheduled until their state is committed again.
+     */
+    public List<Ward> pollFuelDue(long now) {
+        List<Ward> due = new ArrayList<>();
+        for (UUID id : fuelQueue.pollDue(now)) {
+            Ward ward = wards.get(id);
+            if (ward != null) {
+                due.add(ward);
+            }
+        }
+        return due;
+    }
+    
+    /**
+     * Количество оберегов, ожидающих окончания горения
+     */
+    public int getScheduledFuelCount() {
+        return fuelQueue.size();
+    }
+    
+    /**
+     * Запланировать выгорание мачты Tier 3 по next_degrade_time
+     */
+    private void scheduleDegradation(Ward ward) {
+        if (ward.getTier() >= 3) {
+            degradeQueue.schedule(ward.getId(), ward.getNextDegradeTime()); // 0 - таймер ещё не задан, задать сразу
+        } else {
+            degradeQueue.cancel(ward.getId());
+        }
+    }
+    
+    /**
+     * Забрать обереги Tier 3, у которых наступило время выгорания мачты
+     * Returned wards are unscheduled until their state is committed again or {@link #retryDegradation} is called.
+     */
+    public List<Ward> pollDegradationDue(long now) {
+        List<Ward> due = new ArrayList<>();
+        for (UUID id : degradeQueue.pollDue(now)) {
+            Ward ward = wards.get(id);
+            if (ward != null) {
+                due.add(ward);
+            }
+        }
+        return due;
+    }
+    
+    /**
+     * Повторить проверку деградации позже (например, мир оберега не загружен)
+     */
+    public void retryDegradation(Ward ward, long retryAt) {
+        if (ward.getTier() >= 3 && wards.containsKey(ward.getId())) {
+            degradeQueue.schedule(ward.getId(), retryAt);
+        }
+    }
+    
+    /**
+     * Загружены ли чанки структуры оберега
+     * A negative answer is counted as an avoided synchronous chunk load.
+     */
+    public boolean isStructureLoaded(Ward ward) {
+        World world = plugin.getServer().getWorld(ward.getWorld());
+        if (world == null) {
+            return false;
+        }
+        
+        if (plugin.getConfigManager().getStructureTemplate().isLoaded(world, ward.getX(), ward.getZ())) {
+            return true;
+        }
+        avoidedChunkLoads.incrementAndGet();
+        return false;
+    }
+    
+    /**
+     * Отложить выгорание мачт до загрузки чанков структуры
+     * The ward leaves the degradation queue and is rescheduled when any of its missing chunks loads.
+     */
+    public void deferUntilChunkLoad(Ward ward) {
+        clearAwaiting(ward.getWorld(), ward.getId());
+        
+        World world = plugin.getServer().getWorld(ward.getWorld());
+        Map<Long, Set<UUID>> chunks = awaitingChunks.computeIfAbsent(ward.getWorld(), k -> new ConcurrentHashMap<>());
+        Set<Long> keys = new HashSet<>();
+        int reach = plugin.getConfigManager().getStructureTemplate().getReach();
+        
+        for (int cx = (ward.getX() - reach) >> 4; cx <= (ward.getX() + reach) >> 4; cx++) {
+            for (int cz = (ward.getZ() - reach) >> 4; cz <= (ward.getZ() + reach) >> 4; cz++) {
+                if (world == null || !world.isChunkLoaded(cx, cz)) {
+                    long key = WardCoverageCache.chunkKey(cx, cz);
+                    chunks.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(ward.getId());
+                    keys.add(key);
+                }
+            }
+        }
+        
+        if (!keys.isEmpty()) {
+            awaitingByWard.put(ward.getId(), keys);
+        }
+    }
+    
+    /**
+     * Убрать оберег из ожидания всех чанков структуры
+     */
+    private void clearAwaiting(String worldName, UUID wardId) {
+        Set<Long> keys = awaitingByWard.remove(wardId);
+        Map<Long, Set<UUID>> chunks = awaitingChunks.get(worldName);
+        if (keys == null || chunks == null) {
+            return;
+        }
+        
+        for (long key : keys) {
+            chunks.computeIfPresent(key, (k, ids) -> {
+                ids.remove(wardId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+    
+    /**
+     * Вернуть в очередь деградации обереги, ждавшие этот чанк
+     */
+    private void resumeAwaiting(String worldName, int chunkX, int chunkZ) {
+        Map<Long, Set<UUID>> chunks = awaitingChunks.get(worldName);
+        if (chunks == null) {
+            return;
+        }
+        
+        Set<UUID> ids = chunks.remove(WardCoverageCache.chunkKey(chunkX, chunkZ));
+        if (ids == null) {
+            return;
+        }
+        
+        for (UUID id : ids) {
+            clearAwaiting(worldName, id);
+            Ward ward = wards.get(id);
+            if (ward != null) {
+                // Остальные чанки структуры MastDegradationTask проверит сам
+                retryDegradation(ward, ward.getNextDegradeTime());
+            }
+        }
+    }
+    
+    /**
+     * Количество избежанных синхронных загрузок чанков
+     */
+    public long getAvoidedChunkLoads() {
+        return avoidedChunkLoads.get();
+    }
+    
+    /**
+     * Количество оберегов Tier 3 в очереди деградации
+     */
+    public int getScheduledDegradationCount() {
+        return degradeQueue.size();
+    }
+    
     /**
      * Получить оберег по локации
      */
     public Ward getWardByLocation(Location location) {
-        String worldName = location.getWorld().getName();
-        Set<UUID> worldWards = wardsByWorld.get(worldName);
+        if (!isAreaLoaded(location.getWorld().getName(), location.getBlockX(), location.getBlockZ())) {
+            Ward cached = findIndexed(location);
+            return cached != null ? cached : plugin.getDatabase().loadWardByLocation(location);
+        }
+        
+        return findIndexed(location);
+    }
+    
+    /**
+     * Найти оберег по локации в индексе
+     */
+    private Ward findIndexed(Location location) {
+        WardSpatialIndex index = spatialIndexes.get(location.getWorld().getName());
+        
+        if (index == null) {
+            return null;
+        }
         
-        if (worldWards == null) {
+        UUID id = index.getAt(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        return id != null ? wards.get(id) : null;
+    }
+    
+    /**
+     * Найти загруженный оберег по координатам горшка, без обращения к базе
+     */
+    public Ward getWardAt(String worldName, int x, int y, int z) {
+        WardSpatialIndex index = spatialIndexes.get(worldName);
+        if (index == null) {
             return null;
         }
         
-        for (UUID id : worldWards) {
+        UUID id = index.getAt(x, y, z);
+        return id != null ? wards.get(id) : null;
+    }
+    
+    /**
+     * Найти обереги, в структуру которых входит блок
+     */
+    public List<Ward> getWardsByFootprint(String worldName, int x, int y, int z) {
+        WardSpatialIndex index = spatialIndexes.get(worldName);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        
+        Set<UUID> ids = index.getFootprintAt(x, y, z);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        List<Ward> result = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
             Ward ward = wards.get(id);
-            if (ward != null && 
-                ward.getX() == location.getBlockX() &&
-                ward.getY() == location.getBlockY() &&
-                ward.getZ() == location.getBlockZ()) {
-                return ward;
+            if (ward != null) {
+                result.add(ward);
             }
         }
+        return result;
+    }
+    
+    /**
+     * Найти обереги, структура которых задевает чанк
+     */
+    public List<Ward> getWardsTouchingChunk(String worldName, int chunkX, int chunkZ) {
+        WardSpatialIndex index = spatialIndexes.get(worldName);
+        if (index == null) {
+            return Collections.emptyList();
+        }
         
-        return null;
+        int reach = plugin.getConfigManager().getStructureTemplate().getReach();
+        int minX = (chunkX << 4) - reach;
+        int maxX = (chunkX << 4) + 15 + reach;
+        int minZ = (chunkZ << 4) - reach;
+        int maxZ = (chunkZ << 4) + 15 + reach;
+        
+        List<Ward> result = new ArrayList<>();
+        for (int cellX = index.cellCoord(minX); cellX <= index.cellCoord(maxX); cellX++) {
+            for (int cellZ = index.cellCoord(minZ); cellZ <= index.cellCoord(maxZ); cellZ++) {
+                for (UUID id : index.getCell(cellX, cellZ)) {
+                    Ward ward = wards.get(id);
+                    if (ward != null && ward.getX() >= minX && ward.getX() <= maxX
+                            && ward.getZ() >= minZ && ward.getZ() <= maxZ) {
+                        result.add(ward);
+                    }
+                }
+            }
+        }
+        return result;
     }
     
     /**
@@ -181,29 +739,252 @@ public class WardManager {
      */
     public boolean isProtected(Location location, int minTier) {
         String worldName = location.getWorld().getName();
-        Set<UUID> worldWards = wardsByWorld.get(worldName);
+        if (!isAreaLoaded(worldName, location.getBlockX(), location.getBlockZ())) {
+            return isProtectedWhileLoading(location, minTier);
+        }
+        
+        WardSpatialIndex index = spatialIndexes.get(worldName);
         
-        if (worldWards == null) {
+        if (index == null) {
             return false;
         }
         
-        for (UUID id : worldWards) {
-            Ward ward = wards.get(id);
-            if (ward != null && ward.isActive() && ward.getTier() >= minTier) {
-                World world = plugin.getServer().getWorld(ward.getWorld());
-                if (world != null) {
-                    Location wardLoc = ward.getLocation(world);
+        int bx = location.getBlockX();
+        int by = location.getBlockY();
+        int bz = location.getBlockZ();
+        long now = System.currentTimeMillis();
+        
+        // Быстрый ответ по кэшу покрытия секции
+        WardCoverageCache coverage = coverageCaches.computeIfAbsent(worldName, k -> new WardCoverageCache());
+        int cached = coverage.lookup(bx, by, bz, minTier, now);
+        if (cached == WardCoverageCache.UNKNOWN) {
+            computeCoverage(index, coverage, bx >> 4, by >> 4, bz >> 4, now);
+            cached = coverage.lookup(bx, by, bz, minTier, now);
+        }
+        if (cached != WardCoverageCache.UNKNOWN) {
+            return cached == WardCoverageCache.COVERED;
+        }
+        
+        // Граница зоны защиты - точная проверка
+        double px = location.getX();
+        double py = location.getY();
+        double pz = location.getZ();
+        int reach = index.cellReach(getMaxRadius());
+        int cellX = index.cellCoord(bx);
+        int cellZ = index.cellCoord(bz);
+        
+        for (int cx = cellX - reach; cx <= cellX + reach; cx++) {
+            for (int cz = cellZ - reach; cz <= cellZ + reach; cz++) {
+                for (UUID id : index.getCell(cx, cz)) {
+                    Ward ward = wards.get(id);
+                    if (ward != null && ward.getTier() >= minTier && ward.isActive()) {
+                        int radius = getRadius(ward.getTier());
+                        double dx = ward.getX() - px;
+                        double dy = ward.getY() - py;
+                        double dz = ward.getZ() - pz;
+                        
+                        if (dx * dx + dy * dy + dz * dz <= (double) radius * radius) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Проверка защиты в мире, который ещё загружается
+     */
+    private boolean isProtectedWhileLoading(Location location, int minTier) {
+        if (!"QUERY".equals(plugin.getConfigManager().getLoadingFallback())) {
+            return true; // PROTECTED: пока не знаем - считаем защищённым
+        }
+        
+        int maxRadius = getMaxRadius();
+        List<Ward> nearby = plugin.getDatabase().loadWardsNear(location.getWorld().getName(),
+                location.getBlockX(), location.getBlockZ(), maxRadius);
+        
+        for (Ward ward : nearby) {
+            if (ward.getTier() >= minTier && ward.isActive()) {
+                int radius = getRadius(ward.getTier());
+                double dx = ward.getX() - location.getX();
+                double dy = ward.getY() - location.getY();
+                double dz = ward.getZ() - location.getZ();
+                
+                if (dx * dx + dy * dy + dz * dz <= (double) radius * radius) {
+                    return true;
+                }
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Рассчитать покрытие секции 16x16x16 активными оберегами
+     */
+    private void computeCoverage(WardSpatialIndex index, WardCoverageCache coverage,
+                                 int sectionX, int sectionY, int sectionZ, long now) {
+        double minX = sectionX << 4;
+        double minY = sectionY << 4;
+        double minZ = sectionZ << 4;
+        double maxX = minX + 16;
+        double maxY = minY + 16;
+        double maxZ = minZ + 16;
+        
+        int maxRadius = getMaxRadius();
+        int fromCellX = index.cellCoord((int) minX - maxRadius);
+        int toCellX = index.cellCoord((int) maxX + maxRadius);
+        int fromCellZ = index.cellCoord((int) minZ - maxRadius);
+        int toCellZ = index.cellCoord((int) maxZ + maxRadius);
+        
+        int fullTier = 0;
+        int touchTier = 0;
+        long validUntil = Long.MAX_VALUE;
+        
+        for (int cx = fromCellX; cx <= toCellX; cx++) {
+            for (int cz = fromCellZ; cz <= toCellZ; cz++) {
+                for (UUID id : index.getCell(cx, cz)) {
+                    Ward ward = wards.get(id);
+                    if (ward == null || ward.getTier() <= 0 || !ward.isActive()) {
+                        continue;
+                    }
+                    
                     int radius = getRadius(ward.getTier());
-                    double radiusSquared = radius * radius;
+                    double radiusSquared = (double) radius * radius;
+                    double nearest = axisNearest(ward.getX(), minX, maxX) + axisNearest(ward.getY(), minY, maxY)
+                            + axisNearest(ward.getZ(), minZ, maxZ);
+                    if (nearest > radiusSquared) {
+                        continue;
+                    }
+                    
+                    touchTier = Math.max(touchTier, ward.getTier());
+                    double farthest = axisFarthest(ward.getX(), minX, maxX) + axisFarthest(ward.getY(), minY, maxY)
+                            + axisFarthest(ward.getZ(), minZ, maxZ);
+                    if (farthest <= radiusSquared) {
+                        fullTier = Math.max(fullTier, ward.getTier());
+                    }
                     
-                    if (wardLoc.distanceSquared(location) <= radiusSquared) {
-                        return true;
+                    // Последняя мембрана догорает - запись устареет вместе с ней
+                    if (ward.getFuel() == 0) {
+                        validUntil = Math.min(validUntil, ward.getBurnEndTime());
                     }
                 }
             }
         }
         
-        return false;
+        if (validUntil > now) {
+            coverage.store(sectionX, sectionY, sectionZ, fullTier, touchTier, validUntil);
+        }
+    }
+    
+    private static double axisNearest(int value, double min, double max) {
+        double d = value < min ? min - value : (value > max ? value - max : 0);
+        return d * d;
+    }
+    
+    private static double axisFarthest(int value, double min, double max) {
+        double d = Math.max(Math.abs(value - min), Math.abs(value - max));
+        return d * d;
+    }
+    
+    /**
+     * Сбросить кэш покрытия вокруг оберега
+     */
+    private void invalidateCoverage(Ward ward) {
+        WardCoverageCache coverage = coverageCaches.get(ward.getWorld());
+        if (coverage == null) {
+            return;
+        }
+        
+        int radius = getMaxRadius();
+        coverage.invalidate((ward.getX() - radius) >> 4, (ward.getZ() - radius) >> 4,
+                (ward.getX() + radius) >> 4, (ward.getZ() + radius) >> 4);
+    }
+    
+    /**
+     * Выгрузка чанка - удалить его покрытие из кэша
+     */
+    public void onChunkUnload(String worldName, int chunkX, int chunkZ) {
+        WardCoverageCache coverage = coverageCaches.get(worldName);
+        if (coverage != null) {
+            coverage.evictChunk(chunkX, chunkZ);
+        }
+        
+        WardResidency residency = residencies.get(worldName);
+        if (residency != null) {
+            residency.chunkUnloaded(chunkX, chunkZ, System.currentTimeMillis());
+        }
+    }
+    
+    /**
+     * Сбросить весь кэш покрытия (например, после смены радиусов в конфиге)
+     */
+    public void clearCoverage() {
+        coverageCaches.values().forEach(WardCoverageCache::clear);
+    }
+    
+    private WardSpatialIndex newSpatialIndex() {
+        return new WardSpatialIndex(indexCellSize, plugin.getConfigManager().getStructureTemplate().getFootprint());
+    }
+    
+    /**
+     * Перестроить индексы под новый шаблон структуры (после перезагрузки конфига)
+     * Each world's index is rebuilt aside and swapped in, so lookups never see a half-filled index.
+     */
+    public void rebuildSpatialIndexes() {
+        for (Map.Entry<String, Set<UUID>> entry : wardsByWorld.entrySet()) {
+            WardSpatialIndex index = newSpatialIndex();
+            for (UUID id : entry.getValue()) {
+                Ward ward = wards.get(id);
+                if (ward != null) {
+                    index.add(ward);
+                }
+            }
+            spatialIndexes.put(entry.getKey(), index);
+        }
+    }
+    
+    /**
+     * Получить обереги в радиусе от точки
+     * @param center центр поиска
+     * @param radius радиус в блоках
+     * @return обереги, чей горшок находится в радиусе
+     */
+    public List<Ward> getWardsInRadius(Location center, int radius) {
+        List<Ward> result = new ArrayList<>();
+        WardSpatialIndex index = spatialIndexes.get(center.getWorld().getName());
+        
+        if (index == null || radius < 0) {
+            return result;
+        }
+        
+        double radiusSquared = (double) radius * radius;
+        int reach = index.cellReach(radius);
+        int cellX = index.cellCoord(center.getBlockX());
+        int cellZ = index.cellCoord(center.getBlockZ());
+        
+        for (int cx = cellX - reach; cx <= cellX + reach; cx++) {
+            for (int cz = cellZ - reach; cz <= cellZ + reach; cz++) {
+                for (UUID id : index.getCell(cx, cz)) {
+                    Ward ward = wards.get(id);
+                    if (ward == null) {
+                        continue;
+                    }
+                    double dx = ward.getX() - center.getX();
+                    double dy = ward.getY() - center.getY();
+                    double dz = ward.getZ() - center.getZ();
+                    
+                    if (dx * dx + dy * dy + dz * dz <= radiusSquared) {
+                        result.add(ward);
+                    }
+                }
+            }
+        }
+        
+        return result;
     }
     
     /**
@@ -218,6 +999,13 @@ public class WardManager {
         }
     }
     
+    /**
+     * Наибольший радиус среди всех Tier
+     */
+    public int getMaxRadius() {
+        return Math.max(getRadius(1), Math.max(getRadius(2), getRadius(3)));
+    }
+    
     /**
       * Обновить tier оберега
       * @param ward The ward to update (immutable pattern - returns new instance)
@@ -225,7 +1013,14 @@ public class WardManager {
       */
     public Ward updateWardTier(Ward ward, int newTier) {
         Ward newWard = ward.withTier(newTier);
-        wards.put(newWard.getId(), newWard);
+        if (wards.put(newWard.getId(), newWard) == null) {
+            indexWard(newWard); // Оберег из базы, до которого загрузчик ещё не дошёл
+        }
+        dirtyWards.add(newWard.getId());
+        scheduleFuel(newWard);
+        scheduleDegradation(newWard);
+        invalidateCoverage(newWard);
+        refreshDisplays(newWard);
         plugin.getDatabase().saveWard(newWard);
         return newWard;
     }
@@ -235,36 +1030,130 @@ public class WardManager {
       * @param updatedWard The new ward instance to store
       */
     public void updateWardReference(Ward updatedWard) {
-        wards.put(updatedWard.getId(), updatedWard);
+        Ward previous = wards.put(updatedWard.getId(), updatedWard);
+        if (previous == null) {
+            // Оберег прочитан из базы до загрузки его мира или региона - загрузчик его пропустит
+            indexWard(updatedWard);
+            dirtyWards.add(updatedWard.getId());
+            return;
+        }
+        if (previous != updatedWard) {
+            dirtyWards.add(updatedWard.getId());
+        }
+        scheduleFuel(updatedWard);
+        scheduleDegradation(updatedWard);
+        
+        // Покрытие зависит только от Tier и активности
+        if (previous.getTier() != updatedWard.getTier() || previous.isActive() != updatedWard.isActive()) {
+            invalidateCoverage(updatedWard);
+            refreshDisplays(updatedWard);
+        }
     }
     
     /**
      * Удалить оберег
      */
     public void removeWard(Ward ward) {
+        dirtyWards.remove(ward.getId());
+        if (!loadingComplete) {
+            removedWhileLoading.add(ward.getId());
+        }
+        
+        unindexWard(ward);
+        if (plugin.getStructureStateCache() != null) {
+            plugin.getStructureStateCache().invalidate(ward.getId());
+        }
+        if (plugin.getStructureValidator() != null) {
+            plugin.getStructureValidator().forget(ward);
+        }
+        plugin.getDatabase().deleteWard(ward.getId());
+    }
+    
+    /**
+     * Убрать оберег из кэша и индексов (без удаления из БД)
+     */
+    private void unindexWard(Ward ward) {
         wards.remove(ward.getId());
+        fuelQueue.cancel(ward.getId());
+        degradeQueue.cancel(ward.getId());
+        clearAwaiting(ward.getWorld(), ward.getId());
         
         Set<UUID> worldWards = wardsByWorld.get(ward.getWorld());
         if (worldWards != null) {
             worldWards.remove(ward.getId());
         }
         
-        plugin.getDatabase().deleteWard(ward.getId());
+        WardSpatialIndex index = spatialIndexes.get(ward.getWorld());
+        if (index != null) {
+            index.remove(ward);
+        }
+        invalidateCoverage(ward);
+        refreshDisplays(ward);
     }
     
     /**
      * Сохранить все обереги
      */
     public void saveAll() {
-        for (Ward ward : wards.values()) {
-            plugin.getDatabase().saveWard(ward);
-        }
+        dirtyWards.clear();
+        plugin.getDatabase().saveWards(new ArrayList<>(wards.values()));
         
         if (plugin.getConfigManager().isDebugEnabled()) {
             plugin.getLogger().info("Сохранено " + wards.size() + " оберегов");
         }
     }
     
+    /**
+     * Сохранить только обереги, изменённые с прошлого сохранения
+     * @return number of wards written
+     */
+    public int saveDirty() {
+        List<Ward> changed = new ArrayList<>();
+        
+        for (UUID id : dirtyWards) {
+            // Снимаем отметку до чтения: изменение после этого попадёт в следующий цикл
+            dirtyWards.remove(id);
+            Ward ward = wards.get(id);
+            if (ward != null) {
+                changed.add(ward);
+            }
+        }
+        
+        plugin.getDatabase().saveWards(changed);
+        
+        if (plugin.getConfigManager().isDebugEnabled()) {
+            plugin.getLogger().info("Автосохранение: записано " + changed.size() + " из " + wards.size() + " оберегов");
+        }
+        
+        return changed.size();
+    }
+    
+    public boolean isLoadingComplete() {
+        return loadingComplete;
+    }
+    
+    public int getLoadedWorldCount() {
+        return loadingComplete ? Math.max(worldsTotal, loadedWorlds.size()) : loadedWorlds.size();
+    }
+    
+    public int getTotalWorldCount() {
+        return worldsTotal;
+    }
+    
+    /**
+     * Время загрузки в мс (до текущего момента, если загрузка ещё идёт)
+     */
+    public long getLoadMillis() {
+        return (loadingComplete ? loadFinishedAt : System.currentTimeMillis()) - loadStartedAt;
+    }
+    
+    /**
+     * Количество оберегов, ожидающих автосохранения
+     */
+    public int getDirtyCount() {
+        return dirtyWards.size();
+    }
+    
     /**
      * Получить все обереги
      */
@@ -0,0 +1,184 @@
+package dev.keelbismark.shoophantom.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks which 512x512 regions of a single world must have their wards in memory.
+ * <p>
+ * A region is needed while at least one loaded chunk lies within the largest
+ * protection radius of it, so wards just across a region border still protect the
+ * loaded area. Regions become {@link State#LOADING} when first needed and
+ * {@link State#RESIDENT} once their wards are indexed. After the last chunk that
+ * needs a region unloads, the region is reported as idle for eviction.
+ */
+public class WardResidency {
+
+    public static final int REGION_SHIFT = 9; // 512 блоков, как у файлов регионов
+
+    public enum State { LOADING, RESIDENT }
+
+    private final int halo;
+    private final Map<Long, State> states;
+    private final Map<Long, Integer> neededBy; // Сколько загруженных чанков требуют регион
+    private final Map<Long, Long> idleSince;
+
+    /**
+     * @param halo distance in blocks around a chunk whose wards must be resident
+     */
+    public WardResidency(int halo) {
+        this.halo = halo;
+        this.states = new ConcurrentHashMap<>();
+        this.neededBy = new ConcurrentHashMap<>();
+        this.idleSince = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Учесть загрузку чанка
+     * @return keys of regions that are needed but not yet loaded; they are marked LOADING
+     */
+    public List<Long> chunkLoaded(int chunkX, int chunkZ) {
+        List<Long> toLoad = new ArrayList<>(4);
+        int minRX = ((chunkX << 4) - halo) >> REGION_SHIFT;
+        int maxRX = ((chunkX << 4) + 15 + halo) >> REGION_SHIFT;
+        int minRZ = ((chunkZ << 4) - halo) >> REGION_SHIFT;
+        int maxRZ = ((chunkZ << 4) + 15 + halo) >> REGION_SHIFT;
+
+        for (int rx = minRX; rx <= maxRX; rx++) {
+            for (int rz = minRZ; rz <= maxRZ; rz++) {
+                long key = regionKey(rx, rz);
+                neededBy.merge(key, 1, Integer::sum);
+                idleSince.remove(key);
+                if (states.putIfAbsent(key, State.LOADING) == null) {
+                    toLoad.add(key);
+                }
+            }
+        }
+        return toLoad;
+    }
+
+    /**
+     * Учесть выгрузку чанка
+     */
+    public void chunkUnloaded(int chunkX, int chunkZ, long now) {
+        int minRX = ((chunkX << 4) - halo) >> REGION_SHIFT;
+        int maxRX = ((chunkX << 4) + 15 + halo) >> REGION_SHIFT;
+        int minRZ = ((chunkZ << 4) - halo) >> REGION_SHIFT;
+        int maxRZ = ((chunkZ << 4) + 15 + halo) >> REGION_SHIFT;
+
+        for (int rx = minRX; rx <= maxRX; rx++) {
+            for (int rz = minRZ; rz <= maxRZ; rz++) {
+                long key = regionKey(rx, rz);
+                Integer left = neededBy.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+                if (left == null) {
+                    idleSince.put(key, now);
+                }
+            }
+        }
+    }
+
+    /**
+     * Отметить регион загруженным
+     */
+    public void markResident(long regionKey) {
+        states.replace(regionKey, State.LOADING, State.RESIDENT);
+    }
+
+    /**
+     * Загрузка региона не удалась - он будет загружен заново при следующей загрузке чанка рядом
+     */
+    public void markFailed(long regionKey) {
+        states.remove(regionKey, State.LOADING);
+    }
+
+    /**
+     * Забрать регионы, которые не нужны дольше указанного времени
+     * The returned regions stay resident until the caller has saved their wards and
+     * calls {@link #release} or {@link #retryIdle} for each of them.
+     */
+    public List<Long> takeIdle(long now, long graceMillis) {
+        List<Long> idle = new ArrayList<>();
+        for (Map.Entry<Long, Long> entry : idleSince.entrySet()) {
+            long key = entry.getKey();
+            if (now - entry.getValue() >= graceMillis && !neededBy.containsKey(key)
+                    && states.get(key) == State.RESIDENT) {
+                idleSince.remove(key);
+                idle.add(key);
+            }
+        }
+        return idle;
+    }
+
+    /**
+     * Перестать отслеживать регион, взятый через takeIdle
+     * @return false if a chunk needing the region loaded meanwhile; the region stays resident
+     */
+    public boolean release(long regionKey) {
+        if (neededBy.containsKey(regionKey)) {
+            return false;
+        }
+        states.remove(regionKey, State.RESIDENT);
+        return true;
+    }
+
+    /**
+     * Выгрузка региона не удалась - вернуть его в простаивающие для следующей попытки
+     */
+    public void retryIdle(long regionKey, long now) {
+        if (!neededBy.containsKey(regionKey)) {
+            idleSince.putIfAbsent(regionKey, now);
+        }
+    }
+
+    /**
+     * Загружены ли обереги всех регионов, которые могут защищать блок
+     * Uses the same halo as {@link #chunkLoaded}: a ward just across a region border
+     * protects the block too.
+     */
+    public boolean isResidentAround(int blockX, int blockZ) {
+        int minRX = (blockX - halo) >> REGION_SHIFT;
+        int maxRX = (blockX + halo) >> REGION_SHIFT;
+        int minRZ = (blockZ - halo) >> REGION_SHIFT;
+        int maxRZ = (blockZ + halo) >> REGION_SHIFT;
+
+        for (int rx = minRX; rx <= maxRX; rx++) {
+            for (int rz = minRZ; rz <= maxRZ; rz++) {
+                if (states.get(regionKey(rx, rz)) != State.RESIDENT) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public int getResidentCount() {
+        int count = 0;
+        for (State state : states.values()) {
+            if (state == State.RESIDENT) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public static long regionKey(int regionX, int regionZ) {
+        return ((long) regionX << 32) | (regionZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Ключ региона, в котором находится блок
+     */
+    public static long regionAt(int blockX, int blockZ) {
+        return regionKey(blockX >> REGION_SHIFT, blockZ >> REGION_SHIFT);
+    }
+
+    public static int regionX(long regionKey) {
+        return (int) (regionKey >> 32);
+    }
+
+    public static int regionZ(long regionKey) {
+        return (int) regionKey;
+    }
+}
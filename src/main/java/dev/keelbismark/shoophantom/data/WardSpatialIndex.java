@@ -0,0 +1,161 @@
+package dev.keelbismark.shoophantom.data;
+
+import dev.keelbismark.shoophantom.mechanics.StructureTemplate;
+import dev.keelbismark.shoophantom.utils.LocationUtils;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Spatial index of the wards of a single world.
+ * <p>
+ * Wards are bucketed into a square XZ grid whose cell side is a power of two
+ * no smaller than the largest protection radius, so a radius query only has to
+ * look at the few cells around the queried point instead of every ward in the world.
+ * The index stores ward IDs only: positions never change, while the rest of the
+ * ward state is always read from the {@link WardManager} cache.
+ * <p>
+ * A secondary map keyed by the packed block position of the pot answers
+ * exact-position lookups with a single hash probe. A third map covers every block
+ * of each ward's structure footprint ({@link StructureTemplate#getFootprint()}), so a block
+ * change can find the wards it may affect with one probe. Footprints of neighbouring
+ * wards can overlap; the common single-owner case is stored as an immutable singleton.
+ */
+public class WardSpatialIndex {
+
+    private final int cellShift;
+    private final Map<Long, Set<UUID>> cells;
+    private final Map<Long, UUID> blocks;
+    private final Map<Long, Set<UUID>> footprint;
+    private final int[][] footprintOffsets;
+
+    /**
+     * @param minCellSize minimum cell side in blocks (usually the largest tier radius)
+     * @param footprintOffsets offsets of every structure block relative to the pot
+     */
+    public WardSpatialIndex(int minCellSize, int[][] footprintOffsets) {
+        int size = Math.max(16, minCellSize);
+        this.cellShift = 32 - Integer.numberOfLeadingZeros(size - 1);
+        this.cells = new ConcurrentHashMap<>();
+        this.blocks = new ConcurrentHashMap<>();
+        this.footprint = new ConcurrentHashMap<>();
+        this.footprintOffsets = footprintOffsets;
+    }
+
+    /**
+     * Добавить оберег в индекс
+     */
+    public void add(Ward ward) {
+        cells.computeIfAbsent(cellKey(cellCoord(ward.getX()), cellCoord(ward.getZ())),
+                k -> ConcurrentHashMap.newKeySet()).add(ward.getId());
+        blocks.put(LocationUtils.packBlock(ward.getX(), ward.getY(), ward.getZ()), ward.getId());
+
+        Set<UUID> owner = Set.of(ward.getId());
+        for (int[] offset : footprintOffsets) {
+            footprint.merge(footprintKey(ward, offset), owner, WardSpatialIndex::union);
+        }
+    }
+
+    /**
+     * Удалить оберег из индекса
+     */
+    public void remove(Ward ward) {
+        long key = cellKey(cellCoord(ward.getX()), cellCoord(ward.getZ()));
+        Set<UUID> cell = cells.get(key);
+        if (cell != null) {
+            cell.remove(ward.getId());
+            if (cell.isEmpty()) {
+                cells.remove(key, cell);
+            }
+        }
+        blocks.remove(LocationUtils.packBlock(ward.getX(), ward.getY(), ward.getZ()), ward.getId());
+
+        for (int[] offset : footprintOffsets) {
+            footprint.computeIfPresent(footprintKey(ward, offset), (k, owners) -> without(owners, ward.getId()));
+        }
+    }
+
+    /**
+     * Получить ID оберега, чей горшок стоит в указанном блоке
+     * @return ward ID or null
+     */
+    public UUID getAt(int x, int y, int z) {
+        return blocks.get(LocationUtils.packBlock(x, y, z));
+    }
+
+    /**
+     * Получить ID оберегов, в структуру которых входит блок
+     * @return IDs of the wards whose footprint contains the block, never null
+     */
+    public Set<UUID> getFootprintAt(int x, int y, int z) {
+        Set<UUID> owners = footprint.get(LocationUtils.packBlock(x, y, z));
+        return owners != null ? owners : Collections.emptySet();
+    }
+
+    /**
+     * Convert a block coordinate to a cell coordinate.
+     * @param blockCoord block X or Z
+     * @return cell X or Z
+     */
+    public int cellCoord(int blockCoord) {
+        return blockCoord >> cellShift;
+    }
+
+    /**
+     * Number of cells to scan in each direction to cover the given radius.
+     * @param radius query radius in blocks
+     * @return cell reach (at least 1 whenever radius is positive)
+     */
+    public int cellReach(int radius) {
+        return (radius + (1 << cellShift) - 1) >> cellShift;
+    }
+
+    /**
+     * Получить ID оберегов в ячейке
+     * @param cellX cell X
+     * @param cellZ cell Z
+     * @return IDs of the wards in the cell, never null
+     */
+    public Set<UUID> getCell(int cellX, int cellZ) {
+        Set<UUID> cell = cells.get(cellKey(cellX, cellZ));
+        return cell != null ? cell : Collections.emptySet();
+    }
+
+    public int getCellSize() {
+        return 1 << cellShift;
+    }
+
+    public int getCellCount() {
+        return cells.size();
+    }
+
+    private static long footprintKey(Ward ward, int[] offset) {
+        return LocationUtils.packBlock(ward.getX() + offset[0], ward.getY() + offset[1], ward.getZ() + offset[2]);
+    }
+
+    private static Set<UUID> union(Set<UUID> owners, Set<UUID> added) {
+        Set<UUID> result = new HashSet<>(owners);
+        result.addAll(added);
+        return Set.copyOf(result);
+    }
+
+    private static Set<UUID> without(Set<UUID> owners, UUID removed) {
+        if (!owners.contains(removed)) {
+            return owners;
+        }
+        if (owners.size() == 1) {
+            return null; // Блок больше никому не принадлежит
+        }
+        Set<UUID> result = new HashSet<>(owners);
+        result.remove(removed);
+        return Set.copyOf(result);
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,311 @@
+package dev.keelbismark.shoophantom.data;
+
+import org.bukkit.Location;
+import org.bukkit.scheduler.BukkitTask;
+
+import dev.keelbismark.shoophantom.ShooPhantom;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Write-behind layer in front of the real database.
+ * <p>
+ * {@link #saveWard(Ward)} and {@link #deleteWard(UUID)} only mark the ward dirty and
+ * return immediately, so callers on the main thread never wait for SQL. Repeated saves
+ * of the same ward ID are coalesced: only the latest snapshot is written. Pending
+ * changes are flushed from an async task on a fixed interval and once more on
+ * {@link #close()}; a batch the delegate fails to commit stays queued for the next
+ * flush. Reads never wait for a flush: they query the delegate and overlay the
+ * pending saves and deletes, so callers still see their own latest writes.
+ */
+public class WriteBehindDatabase implements Database {
+
+    private final ShooPhantom plugin;
+    private final Database delegate;
+    private final Map<UUID, Ward> pendingSaves;
+    private final Set<UUID> pendingDeletes;
+    private final Object flushLock = new Object();
+
+    private final AtomicLong coalescedSaves = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+    private volatile int lastFlushRows;
+    private BukkitTask flushTask;
+
+    public WriteBehindDatabase(ShooPhantom plugin, Database delegate) {
+        this.plugin = plugin;
+        this.delegate = delegate;
+        this.pendingSaves = new ConcurrentHashMap<>();
+        this.pendingDeletes = ConcurrentHashMap.newKeySet();
+    }
+
+    @Override
+    public boolean initialize() {
+        if (!delegate.initialize()) {
+            return false;
+        }
+
+        long interval = Math.max(1, plugin.getConfigManager().getWriteBehindFlushTicks());
+        flushTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, this::flush, interval, interval);
+        return true;
+    }
+
+    /**
+     * Остановить фоновую запись, сбросить очередь и закрыть базу
+     */
+    @Override
+    public void close() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+
+        flush();
+        delegate.close();
+    }
+
+    @Override
+    public void saveWard(Ward ward) {
+        pendingDeletes.remove(ward.getId());
+        if (pendingSaves.put(ward.getId(), ward) != null) {
+            coalescedSaves.incrementAndGet();
+        }
+    }
+
+    @Override
+    public boolean saveWards(Collection<Ward> wards) {
+        for (Ward ward : wards) {
+            saveWard(ward);
+        }
+        return true;
+    }
+
+    @Override
+    public void deleteWard(UUID id) {
+        pendingSaves.remove(id);
+        pendingDeletes.add(id);
+    }
+
+    @Override
+    public boolean deleteWards(Collection<UUID> ids) {
+        for (UUID id : ids) {
+            deleteWard(id);
+        }
+        return true;
+    }
+
+    /**
+     * Записать все накопленные изменения в базу
+     * Safe to call from any thread; concurrent flushes are serialized.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            if (pendingSaves.isEmpty() && pendingDeletes.isEmpty()) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            int rows = 0;
+            int failed = 0;
+
+            // Из очереди убирается только то, что база подтвердила
+            List<UUID> deletes = new ArrayList<>(pendingDeletes);
+            if (!deletes.isEmpty()) {
+                if (delegate.deleteWards(deletes)) {
+                    pendingDeletes.removeAll(deletes);
+                    rows += deletes.size();
+                } else {
+                    failed += deletes.size();
+                }
+            }
+
+            List<Ward> saves = new ArrayList<>(pendingSaves.values());
+            if (!saves.isEmpty()) {
+                if (delegate.saveWards(saves)) {
+                    for (Ward ward : saves) {
+                        // Если за время записи пришла новая версия - она останется в очереди
+                        pendingSaves.remove(ward.getId(), ward);
+                    }
+                    rows += saves.size();
+                } else {
+                    failed += saves.size();
+                }
+            }
+
+            if (failed > 0) {
+                failedFlushes.incrementAndGet();
+                plugin.getLogger().warning("Не удалось записать " + failed + " изменений, они останутся в очереди до следующей записи");
+            }
+
+            long elapsed = System.nanoTime() - start;
+            lastFlushNanos = elapsed;
+            maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+            lastFlushRows = rows;
+            flushedRows.addAndGet(rows);
+
+            if (plugin.getConfigManager().isDebugEnabled()) {
+                plugin.getLogger().info(String.format("Записано %d изменений за %.1f мс (в очереди: %d)",
+                    rows, elapsed / 1_000_000.0, getQueueDepth()));
+            }
+        }
+    }
+
+    @Override
+    public Ward loadWard(UUID id) {
+        Ward pending = pendingSaves.get(id);
+        if (pending != null) {
+            return pending;
+        }
+        Ward stored = delegate.loadWard(id);
+        return stored != null && !pendingDeletes.contains(id) ? stored : null;
+    }
+
+    @Override
+    public Ward loadWardByLocation(Location location) {
+        String worldName = location.getWorld().getName();
+        for (Ward ward : pendingSaves.values()) {
+            if (ward.getWorld().equals(worldName) && ward.getX() == location.getBlockX()
+                    && ward.getY() == location.getBlockY() && ward.getZ() == location.getBlockZ()) {
+                return ward;
+            }
+        }
+        Ward stored = delegate.loadWardByLocation(location);
+        return stored != null && !pendingDeletes.contains(stored.getId()) ? stored : null;
+    }
+
+    @Override
+    public List<Ward> loadWardsByOwner(UUID ownerUUID) {
+        return overlay(() -> delegate.loadWardsByOwner(ownerUUID), ward -> ward.getOwnerUUID().equals(ownerUUID));
+    }
+
+    @Override
+    public List<Ward> loadWardsByWorld(String worldName) {
+        return overlay(() -> delegate.loadWardsByWorld(worldName), ward -> ward.getWorld().equals(worldName));
+    }
+
+    @Override
+    public List<Ward> loadAllWards() {
+        return overlay(delegate::loadAllWards, ward -> true);
+    }
+
+    @Override
+    public List<String> loadWardWorlds() {
+        Set<String> worlds = new LinkedHashSet<>();
+        for (Ward ward : pendingSaves.values()) {
+            worlds.add(ward.getWorld());
+        }
+        worlds.addAll(delegate.loadWardWorlds());
+        return new ArrayList<>(worlds);
+    }
+
+    @Override
+    public void streamWardsByWorld(String worldName, int fetchSize, Consumer<Ward> consumer) {
+        Map<UUID, Ward> saves = new HashMap<>(pendingSaves);
+        Set<UUID> deletes = new HashSet<>(pendingDeletes);
+
+        delegate.streamWardsByWorld(worldName, fetchSize, ward -> {
+            if (!saves.containsKey(ward.getId()) && !deletes.contains(ward.getId())) {
+                consumer.accept(ward);
+            }
+        });
+        for (Ward ward : saves.values()) {
+            if (ward.getWorld().equals(worldName)) {
+                consumer.accept(ward);
+            }
+        }
+    }
+
+    @Override
+    public List<Ward> loadWardsNear(String worldName, int x, int z, int radius) {
+        return overlay(() -> delegate.loadWardsNear(worldName, x, z, radius),
+            ward -> ward.getWorld().equals(worldName)
+                && Math.abs(ward.getX() - x) <= radius && Math.abs(ward.getZ() - z) <= radius);
+    }
+
+    @Override
+    public int countWardsByOwner(UUID ownerUUID) {
+        if (pendingSaves.isEmpty() && pendingDeletes.isEmpty()) {
+            return delegate.countWardsByOwner(ownerUUID);
+        }
+        return loadWardsByOwner(ownerUUID).size(); // Строки владельца сверяются с очередью по ID
+    }
+
+    /**
+     * Результат запроса к базе с учётом ещё не записанных изменений
+     * Pending state is captured before the query: a flush finishing in between only
+     * moves a ward from the snapshot into the query result, never out of both.
+     */
+    private List<Ward> overlay(Supplier<List<Ward>> query, Predicate<Ward> filter) {
+        Map<UUID, Ward> saves = new HashMap<>(pendingSaves);
+        Set<UUID> deletes = new HashSet<>(pendingDeletes);
+
+        List<Ward> result = new ArrayList<>();
+        for (Ward ward : query.get()) {
+            if (!saves.containsKey(ward.getId()) && !deletes.contains(ward.getId())) {
+                result.add(ward);
+            }
+        }
+        for (Ward ward : saves.values()) {
+            if (filter.test(ward)) {
+                result.add(ward);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Количество изменений, ожидающих записи
+     */
+    public int getQueueDepth() {
+        return pendingSaves.size() + pendingDeletes.size();
+    }
+
+    /**
+     * Сколько сохранений было объединено с более поздними
+     */
+    public long getCoalescedSaves() {
+        return coalescedSaves.get();
+    }
+
+    /**
+     * Сколько раз база не приняла пакет изменений
+     */
+    public long getFailedFlushes() {
+        return failedFlushes.get();
+    }
+
+    public long getFlushedRows() {
+        return flushedRows.get();
+    }
+
+    public int getLastFlushRows() {
+        return lastFlushRows;
+    }
+
+    public double getLastFlushMillis() {
+        return lastFlushNanos / 1_000_000.0;
+    }
+
+    public double getMaxFlushMillis() {
+        return maxFlushNanos / 1_000_000.0;
+    }
+
+    public Database getDelegate() {
+        return delegate;
+    }
+}
@@ -3,28 +3,34 @@ package dev.keelbismark.shoophantom.listeners;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
 import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.inventory.ItemStack;
 
 import dev.keelbismark.shoophantom.ShooPhantom;
 import dev.keelbismark.shoophantom.data.Ward;
-import dev.keelbismark.shoophantom.mechanics.TierCalculator;
+
+import java.util.List;
 
 public class BlockListener implements Listener {
     
     private final ShooPhantom plugin;
-    private final TierCalculator tierCalculator;
     
     public BlockListener(ShooPhantom plugin) {
         this.plugin = plugin;
-        this.tierCalculator = new TierCalculator(plugin);
     }
     
     /**
@@ -45,8 +51,8 @@ public class BlockListener implements Listener {
             }
         }
         
-        // Проверка изменения структуры оберега
-        checkNearbyWards(block.getLocation());
+        // Проверка изменения структуры оберега (в следующем тике, когда блок уже сломан)
+        plugin.getStructureRecheckQueue().markChanged(block);
     }
     
     /**
@@ -55,7 +61,62 @@ public class BlockListener implements Listener {
     @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
     public void onBlockPlace(BlockPlaceEvent event) {
         // Проверка изменения структуры оберега
-        checkNearbyWards(event.getBlock().getLocation());
+        plugin.getStructureRecheckQueue().markChanged(event.getBlock());
+    }
+    
+    /**
+     * Окисление, вощение, сгорание и прочие изменения блоков без игрока
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockForm(BlockFormEvent event) {
+        plugin.getStructureRecheckQueue().markChanged(event.getBlock());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFade(BlockFadeEvent event) {
+        plugin.getStructureRecheckQueue().markChanged(event.getBlock());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent event) {
+        plugin.getStructureRecheckQueue().markChanged(event.getBlock());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent event) {
+        plugin.getStructureRecheckQueue().markChanged(event.getBlock());
+    }
+    
+    /**
+     * Поршень сдвигает блоки - проверяем и старые, и новые позиции
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        markMoved(event.getBlocks(), event.getDirection());
+        plugin.getStructureRecheckQueue().markChanged(event.getBlock().getRelative(event.getDirection()));
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        markMoved(event.getBlocks(), event.getDirection());
+        plugin.getStructureRecheckQueue().markChanged(event.getBlock().getRelative(event.getDirection().getOppositeFace()));
+    }
+    
+    /**
+     * Взрыв - все уничтоженные блоки (после защиты горшков)
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplodeMonitor(EntityExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            plugin.getStructureRecheckQueue().markChanged(block);
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplodeMonitor(BlockExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            plugin.getStructureRecheckQueue().markChanged(block);
+        }
     }
     
     /**
@@ -96,6 +157,16 @@ public class BlockListener implements Listener {
         });
     }
     
+    /**
+     * Отметить исходные и конечные позиции сдвинутых блоков
+     */
+    private void markMoved(List<Block> blocks, BlockFace direction) {
+        for (Block block : blocks) {
+            plugin.getStructureRecheckQueue().markChanged(block);
+            plugin.getStructureRecheckQueue().markChanged(block.getRelative(direction));
+        }
+    }
+    
     /**
      * Обработка разрушения оберега
      */
@@ -115,51 +186,4 @@ public class BlockListener implements Listener {
         // Уведомление
         player.sendMessage(plugin.getMessages().destroySuccess());
     }
-    
-    /**
-     * Проверка оберегов рядом с изменённым блоком
-     */
-    private void checkNearbyWards(Location changedBlock) {
-        // Ищем обереги в радиусе 5 блоков
-        for (int x = -5; x <= 5; x++) {
-            for (int y = -5; y <= 5; y++) {
-                for (int z = -5; z <= 5; z++) {
-                    Location checkLoc = changedBlock.clone().add(x, y, z);
-                    
-                    if (checkLoc.getBlock().getType() == Material.DECORATED_POT) {
-                        Ward ward = plugin.getWardManager().getWardByLocation(checkLoc);
-
-                        if (ward != null) {
-                            // Пересчет Tier
-                            int newTier = tierCalculator.calculateTier(checkLoc);
-
-                            if (newTier != ward.getTier()) {
-                                int oldTier = ward.getTier();
-                                Ward updatedWard = plugin.getWardManager().updateWardTier(ward, newTier);
-
-                                // Уведомление владельца
-                                if (newTier > oldTier) {
-                                    // Улучшение
-                                    notifyOwner(updatedWard, "§a✨ Tier оберега повышен до " + newTier + "!");
-                                } else if (newTier < oldTier) {
-                                    // Ухудшение
-                                    notifyOwner(updatedWard, "§c⚠ Tier оберега понижен до " + newTier + "!");
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        }
-    }
-    
-    /**
-     * Уведомление владельца
-     */
-    private void notifyOwner(Ward ward, String message) {
-        Player owner = plugin.getServer().getPlayer(ward.getOwnerUUID());
-        if (owner != null && owner.isOnline()) {
-            owner.sendMessage(plugin.getMessages().get("prefix") + message);
-        }
-    }
 }
@@ -0,0 +1,46 @@
+package dev.keelbismark.shoophantom.listeners;
+
+import org.bukkit.Chunk;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+import dev.keelbismark.shoophantom.ShooPhantom;
+
+public class ChunkListener implements Listener {
+    
+    private final ShooPhantom plugin;
+    
+    public ChunkListener(ShooPhantom plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * Загрузка чанка - подгрузка оберегов региона и отложенные проверки структур
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        Chunk chunk = event.getChunk();
+        plugin.getWardManager().onChunkLoad(event.getWorld().getName(), chunk.getX(), chunk.getZ());
+        plugin.getStructureValidator().onChunkLoad(event.getWorld().getName(), chunk.getX(), chunk.getZ());
+        plugin.getStructureStateCache().invalidateChunk(event.getWorld().getName(), chunk.getX(), chunk.getZ());
+        if (plugin.getWardDisplayManager() != null) {
+            plugin.getWardDisplayManager().onChunkLoad(event.getWorld().getName(), chunk.getX(), chunk.getZ());
+        }
+    }
+    
+    /**
+     * Выгрузка чанка - очистка кэшей покрытия и состояния структур
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        Chunk chunk = event.getChunk();
+        plugin.getWardManager().onChunkUnload(event.getWorld().getName(), chunk.getX(), chunk.getZ());
+        plugin.getStructureStateCache().invalidateChunk(event.getWorld().getName(), chunk.getX(), chunk.getZ());
+        if (plugin.getWardDisplayManager() != null) {
+            plugin.getWardDisplayManager().onChunkUnload(event.getWorld().getName(), chunk.getX(), chunk.getZ());
+        }
+    }
+}
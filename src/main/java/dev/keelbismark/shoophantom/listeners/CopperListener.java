@@ -0,0 +1,120 @@
+package dev.keelbismark.shoophantom.listeners;
+
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+
+import dev.keelbismark.shoophantom.ShooPhantom;
+import dev.keelbismark.shoophantom.data.Ward;
+import dev.keelbismark.shoophantom.mechanics.StructurePattern;
+
+import java.util.List;
+
+/**
+ * Incremental tracking of Tier 2 copper rings.
+ * <p>
+ * Copper only changes state through weathering (form events), waxing and scraping
+ * (entity change events), and breaking, placing or exploding. Each change of a ring
+ * block is passed to {@link dev.keelbismark.shoophantom.mechanics.DegradationManager}
+ * as a delta, so warnings and downgrades happen as soon as a threshold is crossed.
+ */
+public class CopperListener implements Listener {
+    
+    private final ShooPhantom plugin;
+    
+    public CopperListener(ShooPhantom plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * Окисление меди
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockForm(BlockFormEvent event) {
+        Block block = event.getBlock();
+        handleChange(block, block.getType(), event.getNewState().getType(), false);
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFade(BlockFadeEvent event) {
+        Block block = event.getBlock();
+        handleChange(block, block.getType(), event.getNewState().getType(), false);
+    }
+    
+    /**
+     * Вощение и очистка топором
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent event) {
+        Block block = event.getBlock();
+        handleChange(block, block.getType(), event.getTo(), false);
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        Block block = event.getBlock();
+        handleChange(block, block.getType(), Material.AIR, false);
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        Block block = event.getBlock();
+        handleChange(block, event.getBlockReplacedState().getType(), block.getType(), true);
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        handleExploded(event.blockList());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        handleExploded(event.blockList());
+    }
+    
+    private void handleExploded(List<Block> blocks) {
+        for (Block block : blocks) {
+            handleChange(block, block.getType(), Material.AIR, false);
+        }
+    }
+    
+    /**
+     * Передать изменение блока оберегам, в кольцо которых он входит
+     */
+    private void handleChange(Block block, Material from, Material to, boolean applied) {
+        if (!plugin.getDegradationManager().affectsAliveCopper(from, to)) {
+            return;
+        }
+        
+        String worldName = block.getWorld().getName();
+        StructurePattern ring = plugin.getConfigManager().getStructureTemplate().getRing();
+        for (int cell = 0; cell < ring.size(); cell++) {
+            int potX = block.getX() - ring.dx(cell);
+            int potY = block.getY() - ring.dy(cell);
+            int potZ = block.getZ() - ring.dz(cell);
+            
+            Ward ward = plugin.getWardManager().getWardAt(worldName, potX, potY, potZ);
+            if (ward == null) {
+                continue;
+            }
+            
+            if (!plugin.getWardManager().isStructureLoaded(ward)) {
+                // Часть кольца в выгруженном чанке - пересчитаем при следующем изменении
+                plugin.getDegradationManager().forgetCopper(ward.getId());
+                continue;
+            }
+            
+            // Понижение Tier применяется внутри через очередь пересчёта структуры
+            plugin.getDegradationManager().onCopperChange(ward, ward.getLocation(block.getWorld()), from, to, applied);
+        }
+    }
+}
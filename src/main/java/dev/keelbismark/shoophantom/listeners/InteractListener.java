@@ -14,6 +14,7 @@ import org.bukkit.inventory.ItemStack;
 import dev.keelbismark.shoophantom.ShooPhantom;
 import dev.keelbismark.shoophantom.data.Ward;
 import dev.keelbismark.shoophantom.items.ShooSigil;
+import dev.keelbismark.shoophantom.mechanics.StructureState;
 import dev.keelbismark.shoophantom.mechanics.TierCalculator;
 
 public class InteractListener implements Listener {
@@ -199,21 +200,23 @@ public class InteractListener implements Listener {
         String timeStr = plugin.getFuelManager().formatRemainingTime(remaining);
         player.sendMessage(plugin.getMessages().infoTimeLeft(timeStr));
         
+        // Состояние структуры (из кэша, пересчёт только после изменений)
+        StructureState structure = ward.getTier() >= 2
+            ? plugin.getStructureStateCache().get(ward, player.getWorld())
+            : null;
+        
         // Дополнительная информация для Tier 2+
         if (ward.getTier() >= 2) {
-            int aliveBlocks = tierCalculator.countAliveCopperBlocks(
-                ward.getLocation(player.getWorld())
-            );
-            player.sendMessage(plugin.getMessages().infoRing(aliveBlocks));
+            int aliveBlocks = structure.aliveCopper();
+            player.sendMessage(plugin.getMessages().infoRing(aliveBlocks,
+                plugin.getConfigManager().getStructureTemplate().getRingSize()));
         }
         
         // Дополнительная информация для Tier 3
         if (ward.getTier() >= 3) {
-            int aliveMasts = tierCalculator.countAliveMasts(
-                ward.getLocation(player.getWorld())
-            );
-            int percent = (aliveMasts * 100) / 4;
-            player.sendMessage(plugin.getMessages().infoMasts(aliveMasts, percent));
+            int aliveMasts = structure.aliveMasts();
+            int percent = (aliveMasts * 100) / Math.max(1, structure.mastCount());
+            player.sendMessage(plugin.getMessages().infoMasts(aliveMasts, structure.mastCount(), percent));
         }
     }
 }
@@ -7,18 +7,26 @@ import org.bukkit.entity.Player;
 import dev.keelbismark.shoophantom.ShooPhantom;
 import dev.keelbismark.shoophantom.data.Ward;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DegradationManager {
     
     private final ShooPhantom plugin;
     private final TierCalculator tierCalculator;
     private final Random random;
+    private final Map<UUID, Integer> aliveCopper; // Число живых блоков кольца Tier 2 по событиям
     
     public DegradationManager(ShooPhantom plugin) {
         this.plugin = plugin;
         this.tierCalculator = new TierCalculator(plugin);
         this.random = new Random();
+        this.aliveCopper = new ConcurrentHashMap<>();
     }
     
     /**
@@ -37,21 +45,89 @@ public class DegradationManager {
         
         Location potLoc = ward.getLocation(world);
         int aliveBlocks = tierCalculator.countAliveCopperBlocks(potLoc);
+        return applyAliveCopper(ward, aliveBlocks);
+    }
+
+    /**
+      * Учесть изменение блока медного кольца Tier 2
+      * @param from material before the change
+      * @param to material after the change
+      * @param applied whether the world already holds {@code to} (place events) or still holds {@code from}
+      * @return New Ward instance if tier changed, or current ward otherwise
+      */
+    public Ward onCopperChange(Ward ward, Location potLoc, Material from, Material to, boolean applied) {
+        if (ward.getTier() < 2) {
+            aliveCopper.remove(ward.getId()); // Изменения ниже Tier 2 не учитываются - счётчик устарел
+            return ward;
+        }
+
+        Set<Material> aliveMaterials = plugin.getConfigManager().getTier2AliveMaterials();
+        int delta = (aliveMaterials.contains(to) ? 1 : 0) - (aliveMaterials.contains(from) ? 1 : 0);
+        if (delta == 0) {
+            return ward;
+        }
+
+        Integer tracked = aliveCopper.get(ward.getId());
+        int aliveBlocks;
+        if (tracked != null) {
+            aliveBlocks = tracked + delta;
+        } else {
+            // Первое изменение кольца - один полный подсчёт, дальше только дельты
+            int counted = tierCalculator.countAliveCopperBlocks(potLoc);
+            aliveBlocks = applied ? counted : counted + delta;
+        }
+        return applyAliveCopper(ward, aliveBlocks);
+    }
+
+    /**
+      * Может ли замена блока изменить число живой меди
+      */
+    public boolean affectsAliveCopper(Material from, Material to) {
+        Set<Material> aliveMaterials = plugin.getConfigManager().getTier2AliveMaterials();
+        return from != to && (aliveMaterials.contains(from) || aliveMaterials.contains(to));
+    }
+
+    /**
+      * Забыть счётчик кольца, который больше нельзя поддерживать по событиям
+      */
+    public void forgetCopper(UUID wardId) {
+        aliveCopper.remove(wardId);
+    }
+
+    /**
+      * Забыть счётчики оберегов, которых больше нет или которые ниже Tier 2
+      */
+    public void retainCopperTracking(Collection<Ward> wards) {
+        Set<UUID> tier2 = new HashSet<>();
+        for (Ward ward : wards) {
+            if (ward.getTier() >= 2) {
+                tier2.add(ward.getId());
+            }
+        }
+        aliveCopper.keySet().retainAll(tier2);
+    }
+
+    /**
+      * Предупреждение и понижение по числу живых блоков кольца
+      * Warnings fire only when the count changes onto the threshold, not on every recount.
+      * A downgrade is applied through {@link StructureRecheckQueue#applyTier}, which updates
+      * the ward manager, so callers need not store the returned ward themselves.
+      */
+    private Ward applyAliveCopper(Ward ward, int aliveBlocks) {
         int minAlive = plugin.getConfigManager().getTier2MinAliveBlocks();
         int warnThreshold = plugin.getConfigManager().getTier2WarnThreshold();
+        Integer previous = aliveCopper.put(ward.getId(), aliveBlocks);
         
         // Проверка предупреждения
-        if (aliveBlocks == warnThreshold) {
+        if (aliveBlocks == warnThreshold && (previous == null || previous != aliveBlocks)) {
             notifyOwner(ward, plugin.getMessages().degradationTier2Warn(aliveBlocks));
         }
         
         // Проверка отказа
         if (aliveBlocks < minAlive) {
-            // Понижение Tier
-            Ward newWard = ward.withTier(1);
-            plugin.getDatabase().saveWard(newWard);
-            notifyOwner(ward, plugin.getMessages().degradationTier2Fail());
-            return newWard;
+            // Понижение Tier тем же путём, что и при пересчёте структуры - очередь увидит уже Tier 1
+            aliveCopper.remove(ward.getId());
+            return plugin.getStructureRecheckQueue().applyTier(ward, 1, plugin.getMessages().degradationTier2Fail());
         }
 
         return ward;
@@ -76,32 +152,44 @@ public class DegradationManager {
 
         // Проверка времени деградации
         if (ward.getNextDegradeTime() > now) {
-            // Еще не время - проверяем паузу при отсутствии игроков
-            if (plugin.getConfigManager().getTier3PauseWhenNoPlayers()) {
-                World world = Bukkit.getWorld(ward.getWorld());
-                if (world != null) {
-                    Location wardLoc = ward.getLocation(world);
-                    int pauseRadius = plugin.getConfigManager().getTier3PauseCheckRadius();
-
-                    boolean hasPlayers = false;
-                    for (Player player : world.getPlayers()) {
-                        if (wardLoc.distance(player.getLocation()) <= pauseRadius) {
-                            hasPlayers = true;
-                            break;
-                        }
-                    }
-
-                    if (!hasPlayers) {
-                        return ward; // Пауза деградации
-                    }
-                }
-            }
             return ward; // Еще не время
         }
 
-        // Время наступило - выполняем деградацию без проверки паузы
+        // Время наступило - при паузе без игроков откладываем выгорание
+        if (plugin.getConfigManager().getTier3PauseWhenNoPlayers()) {
+            World world = Bukkit.getWorld(ward.getWorld());
+            if (world != null && !hasPlayersNearby(ward, world)) {
+                long deferMillis = plugin.getConfigManager().getTier3PauseDeferMinutes() * 60 * 1000L;
+                Ward newWard = ward.withNextDegradeTime(now + deferMillis);
+                plugin.getDatabase().saveWard(newWard);
+                return newWard;
+            }
+        }
+
         return performTier3Degradation(ward);
     }
+
+    /**
+      * Есть ли игроки в радиусе проверки паузы
+      */
+    private boolean hasPlayersNearby(Ward ward, World world) {
+        int pauseRadius = plugin.getConfigManager().getTier3PauseCheckRadius();
+        double radiusSquared = (double) pauseRadius * pauseRadius;
+        double cx = ward.getX();
+        double cy = ward.getY();
+        double cz = ward.getZ();
+
+        for (Player player : world.getPlayers()) {
+            Location loc = player.getLocation();
+            double dx = loc.getX() - cx;
+            double dy = loc.getY() - cy;
+            double dz = loc.getZ() - cz;
+            if (dx * dx + dy * dy + dz * dz <= radiusSquared) {
+                return true;
+            }
+        }
+        return false;
+    }
     
     /**
       * Выполнение деградации Tier 3
@@ -116,22 +204,19 @@ public class DegradationManager {
         Location potLoc = ward.getLocation(world);
 
         // Найти случайную живую мачту и "перегореть" её
-        int[][] mastPositions = {
-            {2, 0, 2},
-            {2, 0, -2},
-            {-2, 0, 2},
-            {-2, 0, -2}
-        };
+        StructureTemplate template = plugin.getConfigManager().getStructureTemplate();
+        int mastCount = template.getMastCount();
 
         Material topMaterial = plugin.getConfigManager().getTier3MastTop();
         Material deadMaterial = plugin.getConfigManager().getTier3MastDead();
 
         // Найти все живые мачты
-        Location[] aliveMasts = new Location[4];
+        Location[] aliveMasts = new Location[mastCount];
         int aliveCount = 0;
 
-        for (int[] pos : mastPositions) {
-            Location topLoc = potLoc.clone().add(pos[0], 3, pos[2]);
+        for (int i = 0; i < mastCount; i++) {
+            int[] top = template.getMastTop(i);
+            Location topLoc = potLoc.clone().add(top[0], top[1], top[2]);
             if (topLoc.getBlock().getType() == topMaterial) {
                 aliveMasts[aliveCount++] = topLoc;
             }
@@ -152,12 +237,17 @@ public class DegradationManager {
         Block mastBlock = mastToBurn.getBlock();
         mastBlock.setType(deadMaterial);
         
+        // setType не вызывает событий - сообщаем об изменении структуры сами
+        if (plugin.getStructureRecheckQueue() != null) {
+            plugin.getStructureRecheckQueue().markChanged(mastBlock);
+        }
+        
         // Визуальные эффекты
         playDegradationEffects(mastToBurn);
         
         // Пересчитываем живые мачты
         int newAliveCount = aliveCount - 1;
-        int percent = (newAliveCount * 100) / 4;
+        int percent = (newAliveCount * 100) / mastCount;
         
         // Уведомление
         notifyOwner(ward, plugin.getMessages().degradationTier3Mast(percent, newAliveCount));
@@ -201,11 +291,15 @@ public class DegradationManager {
             return;
         }
         
-        // Дым
-        world.spawnParticle(Particle.SMOKE, location, 20, 0.3, 0.3, 0.3, 0.02);
-        
-        // Искры
-        world.spawnParticle(Particle.LAVA, location, 10, 0.2, 0.2, 0.2, 0.01);
+        // Частицы - с учётом нагрузки сервера
+        QualityController quality = plugin.getQualityController();
+        if (quality == null || quality.allowsCosmetics()) {
+            // Дым
+            world.spawnParticle(Particle.SMOKE, location, quality != null ? quality.scaleCount(20) : 20, 0.3, 0.3, 0.3, 0.02);
+            
+            // Искры
+            world.spawnParticle(Particle.LAVA, location, quality != null ? quality.scaleCount(10) : 10, 0.2, 0.2, 0.2, 0.01);
+        }
         
         // Звук
         world.playSound(location, Sound.ENTITY_GENERIC_EXTINGUISH_FIRE, 1.0f, 1.0f);
@@ -10,20 +10,16 @@ import dev.keelbismark.shoophantom.data.Ward;
 public class EffectManager {
     
     private final ShooPhantom plugin;
-    private final TierCalculator tierCalculator;
     
     public EffectManager(ShooPhantom plugin) {
         this.plugin = plugin;
-        this.tierCalculator = new TierCalculator(plugin);
     }
     
     /**
      * Применить эффекты Tier 3 к фантому
+     * @param power Tier 3 power from the ward's cached structure state
      */
-    public void applyTier3Effects(Ward ward, Phantom phantom, Location wardLocation) {
-        // Рассчитываем мощность
-        double power = tierCalculator.calculateTier3Power(wardLocation);
-        
+    public void applyTier3Effects(Ward ward, Phantom phantom, Location wardLocation, double power) {
         if (power <= 0) {
             return; // Нет живых мачт
         }
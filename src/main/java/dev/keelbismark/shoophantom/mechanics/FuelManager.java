@@ -99,6 +99,34 @@ public class FuelManager {
         }
     }
 
+    /**
+     * Досчитать расход топлива оберега, который какое-то время не обрабатывался (был выгружен)
+     * Time before {@code notBefore} is not charged, just as fuel does not burn while the server is off.
+     * @param notBefore earliest moment (ms) from which consumption is counted
+     * @return New Ward instance with consumed fuel, or current if nothing burned out
+     */
+    public Ward catchUpFuel(Ward ward, long notBefore) {
+        long now = System.currentTimeMillis();
+        if (ward.getBurnEndTime() > now || ward.getFuel() <= 0) {
+            return ward; // Ещё горит или жечь нечего - дальше справится processFuelConsumption
+        }
+
+        long membraneTime = getFuelMinutes(ward.getTier()) * 60 * 1000L;
+        long start = Math.max(ward.getBurnEndTime(), notBefore);
+        long burned = (now - start) / membraneTime + 1; // Включая мембрану, начавшую гореть в start
+
+        if (burned <= ward.getFuel()) {
+            return ward
+                .withFuel(ward.getFuel() - (int) burned)
+                .withBurnEndTime(start + burned * membraneTime);
+        }
+
+        // Всё сгорело, пока оберег был выгружен
+        return ward
+            .withFuel(0)
+            .withBurnEndTime(start + ward.getFuel() * membraneTime);
+    }
+
     /**
      * Получить оставшееся время работы оберега
      */
@@ -0,0 +1,93 @@
+package dev.keelbismark.shoophantom.mechanics;
+
+import com.destroystokyo.paper.event.entity.EntityAddToWorldEvent;
+import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
+import org.bukkit.World;
+import org.bukkit.entity.Phantom;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Live phantoms per world, kept from entity add/remove events.
+ * <p>
+ * Paper fires {@link EntityAddToWorldEvent} for every entity that enters a world,
+ * whether spawned or loaded with its chunk, and {@link EntityRemoveFromWorldEvent}
+ * when it dies, despawns or unloads, so the registry holds exactly the phantoms
+ * currently ticking. Repel iterates these instead of scanning all entities around
+ * every ward. Main thread only.
+ */
+public class PhantomRegistry implements Listener {
+
+    private final Map<String, Map<UUID, Phantom>> phantoms = new HashMap<>();
+    private int total;
+
+    /**
+     * Учесть фантомов, уже находящихся в мирах (включение или перезагрузка плагина)
+     */
+    public void seed(Collection<World> worlds) {
+        for (World world : worlds) {
+            for (Phantom phantom : world.getEntitiesByClass(Phantom.class)) {
+                add(world.getName(), phantom);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityAdd(EntityAddToWorldEvent event) {
+        if (event.getEntity() instanceof Phantom phantom) {
+            add(event.getWorld().getName(), phantom);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityRemove(EntityRemoveFromWorldEvent event) {
+        if (!(event.getEntity() instanceof Phantom phantom)) {
+            return;
+        }
+
+        Map<UUID, Phantom> worldPhantoms = phantoms.get(event.getWorld().getName());
+        if (worldPhantoms != null && worldPhantoms.remove(phantom.getUniqueId()) != null) {
+            total--;
+            if (worldPhantoms.isEmpty()) {
+                phantoms.remove(event.getWorld().getName());
+            }
+        }
+    }
+
+    private void add(String worldName, Phantom phantom) {
+        if (phantoms.computeIfAbsent(worldName, k -> new LinkedHashMap<>()).put(phantom.getUniqueId(), phantom) == null) {
+            total++;
+        }
+    }
+
+    /**
+     * Фантомы мира (живое представление - при переборе с побочными эффектами копировать)
+     */
+    public Collection<Phantom> getPhantoms(String worldName) {
+        Map<UUID, Phantom> worldPhantoms = phantoms.get(worldName);
+        return worldPhantoms != null ? worldPhantoms.values() : Collections.emptyList();
+    }
+
+    /**
+     * Миры, в которых есть хотя бы один фантом
+     */
+    public Collection<String> getWorlds() {
+        return phantoms.keySet();
+    }
+
+    public boolean isEmpty() {
+        return total == 0;
+    }
+
+    public int size() {
+        return total;
+    }
+}
@@ -0,0 +1,164 @@
+package dev.keelbismark.shoophantom.mechanics;
+
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+import dev.keelbismark.shoophantom.ShooPhantom;
+import dev.keelbismark.shoophantom.config.ConfigManager;
+
+/**
+ * Adaptive quality of cosmetics and repel under server lag.
+ * <p>
+ * Tick durations from {@link ServerTickEndEvent} are averaged over
+ * {@code adaptive-quality.window-ticks}. When the average crosses a
+ * {@code step-down-mspt} threshold the level drops at once; it climbs back one level
+ * at a time, only after the average has stayed below the threshold minus
+ * {@code recover-margin-mspt} and {@code recover-delay-ticks} have passed since the
+ * last change, so the level does not flap around a threshold. Each level maps to a
+ * particle density and a repel interval multiplier. Independently of the level, a
+ * single tick longer than {@code skip-cosmetics-above-mspt} suppresses the next
+ * particle run. Main thread only.
+ */
+public class QualityController implements Listener {
+
+    private static final int EVALUATE_INTERVAL_TICKS = 20;
+
+    private final ShooPhantom plugin;
+    private double[] samples;
+    private int sampleIndex;
+    private int sampleCount;
+    private double sampleSum;
+    private double lastTickMspt;
+    private double averageMspt;
+    private long ticks;
+    private long lastChangeTick;
+
+    private int level;
+    private double particleDensity = 1.0;
+    private int repelIntervalMultiplier = 1;
+    private long levelChanges;
+
+    public QualityController(ShooPhantom plugin) {
+        this.plugin = plugin;
+        resetWindow(plugin.getConfigManager().getAdaptiveWindowTicks());
+    }
+
+    private void resetWindow(int window) {
+        samples = new double[window];
+        sampleIndex = 0;
+        sampleCount = 0;
+        sampleSum = 0;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onTickEnd(ServerTickEndEvent event) {
+        record(event.getTickDuration());
+    }
+
+    /**
+     * Учесть длительность очередного тика
+     */
+    public void record(double mspt) {
+        sampleSum += mspt - samples[sampleIndex];
+        samples[sampleIndex] = mspt;
+        sampleIndex = (sampleIndex + 1) % samples.length;
+        sampleCount = Math.min(sampleCount + 1, samples.length);
+        lastTickMspt = mspt;
+        ticks++;
+
+        if (ticks % EVALUATE_INTERVAL_TICKS == 0) {
+            evaluate(plugin.getConfigManager());
+        }
+    }
+
+    private void evaluate(ConfigManager config) {
+        averageMspt = sampleSum / sampleCount;
+
+        int window = config.getAdaptiveWindowTicks();
+        if (samples.length != window) {
+            resetWindow(window); // Окно изменилось при перезагрузке
+        }
+        if (!config.isAdaptiveQualityEnabled()) {
+            setLevel(0, config);
+            return;
+        }
+
+        double[] thresholds = config.getAdaptiveStepDownMspt();
+        int target = 0;
+        while (target < thresholds.length && averageMspt >= thresholds[target]) {
+            target++;
+        }
+
+        if (target > level || level > thresholds.length) {
+            setLevel(target, config); // Уровней могло стать меньше при перезагрузке
+        } else if (target < level
+                && averageMspt < thresholds[level - 1] - config.getAdaptiveRecoverMarginMspt()
+                && ticks - lastChangeTick >= config.getAdaptiveRecoverDelayTicks()) {
+            setLevel(level - 1, config); // Восстанавливаемся по одному уровню
+        } else {
+            // Пороги могли измениться при перезагрузке
+            particleDensity = config.getAdaptiveParticleDensity(level);
+            repelIntervalMultiplier = config.getAdaptiveRepelIntervalMultiplier(level);
+        }
+    }
+
+    private void setLevel(int newLevel, ConfigManager config) {
+        if (newLevel != level) {
+            if (config.isDebugEnabled()) {
+                plugin.getLogger().info(String.format("Качество эффектов: уровень %d -> %d (MSPT %.1f)", level, newLevel, averageMspt));
+            }
+            level = newLevel;
+            lastChangeTick = ticks;
+            levelChanges++;
+        }
+        particleDensity = config.getAdaptiveParticleDensity(level);
+        repelIntervalMultiplier = config.getAdaptiveRepelIntervalMultiplier(level);
+    }
+
+    /**
+     * Можно ли сейчас рисовать частицы
+     */
+    public boolean allowsCosmetics() {
+        return particleDensity > 0 && lastTickMspt < plugin.getConfigManager().getAdaptiveSkipCosmeticsMspt();
+    }
+
+    /**
+     * Количество частиц с учётом плотности (не меньше одной)
+     */
+    public int scaleCount(int count) {
+        return Math.max(1, (int) Math.round(count * particleDensity));
+    }
+
+    /**
+     * Шаг по точкам колец и лучей: 1 - каждая, 2 - каждая вторая, ...
+     */
+    public int getPointStride() {
+        return particleDensity >= 1 ? 1 : (int) Math.max(1, Math.round(1 / particleDensity));
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getMaxLevel() {
+        return plugin.getConfigManager().getAdaptiveStepDownMspt().length;
+    }
+
+    public double getAverageMspt() {
+        return averageMspt;
+    }
+
+    public double getParticleDensity() {
+        return particleDensity;
+    }
+
+    public int getRepelIntervalMultiplier() {
+        return repelIntervalMultiplier;
+    }
+
+    public long getLevelChanges() {
+        return levelChanges;
+    }
+}
@@ -0,0 +1,219 @@
+package dev.keelbismark.shoophantom.mechanics;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import dev.keelbismark.shoophantom.ShooPhantom;
+import dev.keelbismark.shoophantom.data.Ward;
+import dev.keelbismark.shoophantom.data.WardManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+
+/**
+ * Background reconciliation of wards with the blocks actually in the world.
+ * <p>
+ * Block events miss WorldEdit, rollbacks, other plugins and anything that happened
+ * while the plugin was offline. The auditor walks every ward in memory round-robin,
+ * spending at most {@code structure.audit.budget-ms} of the main thread per tick:
+ * wards whose pot is gone are removed, others get their tier recalculated. Wards
+ * whose structure chunks are not loaded are skipped until the next pass; chunks are
+ * never loaded for the audit.
+ * <p>
+ * The background pass runs every {@code structure.audit.interval-ticks} ticks.
+ * {@link #revalidate} starts a full pass that runs every tick and reports progress.
+ * Main thread only.
+ */
+public class StructureAuditor {
+
+    private static final long PROGRESS_INTERVAL_TICKS = 100; // Отчёт о ходе ручной проверки каждые 5 секунд
+
+    private final ShooPhantom plugin;
+    private final Deque<UUID> pass = new ArrayDeque<>();
+    private int passSize;
+    private long tickCounter;
+
+    // Ручная проверка
+    private CommandSender requester;
+    private String requestedWorld;
+    private long requestedAt;
+    private int passChecked;
+    private int passFixed;
+    private int passRemoved;
+    private int passSkipped;
+
+    // Статистика
+    private long checked;
+    private long fixed;
+    private long removed;
+    private long skipped;
+    private long passes;
+
+    public StructureAuditor(ShooPhantom plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Запустить полную проверку оберегов (всех или одного мира)
+     * @param worldName world to check, or null for all worlds
+     * @return false if a manual pass is already running
+     */
+    public boolean revalidate(CommandSender sender, String worldName) {
+        if (requester != null) {
+            return false;
+        }
+
+        requester = sender;
+        requestedWorld = worldName;
+        requestedAt = tickCounter;
+        startPass(worldName); // Текущий фоновый проход отбрасывается
+        return true;
+    }
+
+    public boolean isRevalidating() {
+        return requester != null;
+    }
+
+    /**
+     * Проверить очередную порцию оберегов в пределах бюджета тика
+     */
+    public void tick() {
+        tickCounter++;
+        WardManager wardManager = plugin.getWardManager();
+        if (!wardManager.isLoadingComplete()) {
+            return;
+        }
+
+        if (requester == null) {
+            if (!plugin.getConfigManager().isAuditEnabled()
+                    || tickCounter % Math.max(1, plugin.getConfigManager().getAuditIntervalTicks()) != 0) {
+                return;
+            }
+            if (pass.isEmpty()) {
+                startPass(null);
+            }
+        }
+
+        long budgetNanos = (long) (plugin.getConfigManager().getAuditBudgetMillis() * 1_000_000L);
+        long start = System.nanoTime();
+        while (!pass.isEmpty()) {
+            Ward ward = wardManager.getWard(pass.poll());
+            if (ward != null) {
+                audit(ward, wardManager);
+            }
+            if (System.nanoTime() - start >= budgetNanos) {
+                break; // Хотя бы один оберег за тик
+            }
+        }
+
+        if (pass.isEmpty()) {
+            finishPass();
+        } else if (requester != null && (tickCounter - requestedAt) % PROGRESS_INTERVAL_TICKS == 0) {
+            report("§7Проверка структур: §f" + (passSize - pass.size()) + "/" + passSize);
+        }
+    }
+
+    private void startPass(String worldName) {
+        pass.clear();
+        for (Ward ward : worldName != null
+                ? plugin.getWardManager().getWardsByWorld(worldName)
+                : plugin.getWardManager().getAllWards()) {
+            pass.add(ward.getId());
+        }
+        passSize = pass.size();
+        passChecked = 0;
+        passFixed = 0;
+        passRemoved = 0;
+        passSkipped = 0;
+    }
+
+    private void finishPass() {
+        if (passSize > 0) {
+            passes++;
+        }
+
+        if (requester != null) {
+            report(String.format("§aПроверка структур%s завершена: §f%d §7проверено, §f%d §7исправлено, §f%d §7удалено, §f%d §7пропущено (чанки не загружены)",
+                requestedWorld != null ? " мира " + requestedWorld : "",
+                passChecked, passFixed, passRemoved, passSkipped));
+            requester = null;
+            requestedWorld = null;
+        } else if (passFixed + passRemoved > 0 && plugin.getConfigManager().isDebugEnabled()) {
+            plugin.getLogger().info("Фоновая проверка структур: исправлено " + passFixed + ", удалено " + passRemoved);
+        }
+        passSize = 0;
+    }
+
+    /**
+     * Сверить один оберег с миром
+     */
+    private void audit(Ward ward, WardManager wardManager) {
+        World world = plugin.getServer().getWorld(ward.getWorld());
+        if (world == null || !wardManager.isStructureLoaded(ward)) {
+            skipped++;
+            passSkipped++;
+            return;
+        }
+
+        checked++;
+        passChecked++;
+
+        if (world.getBlockAt(ward.getX(), ward.getY(), ward.getZ()).getType() != Material.DECORATED_POT) {
+            // Горшок исчез без события (WorldEdit, откат, другой плагин)
+            removed++;
+            passRemoved++;
+            wardManager.removeWard(ward);
+            plugin.getLogger().info("Удалён оберег без горшка: " + ward.getWorld() + " "
+                + ward.getX() + ", " + ward.getY() + ", " + ward.getZ());
+            return;
+        }
+
+        int tier = plugin.getStructureStateCache().refresh(ward, world).tier();
+        if (tier != ward.getTier()) {
+            fixed++;
+            passFixed++;
+            if (plugin.getConfigManager().isDebugEnabled()) {
+                plugin.getLogger().info("Проверка структуры: оберег " + ward.getId()
+                    + " Tier " + ward.getTier() + " -> " + tier);
+            }
+            plugin.getStructureRecheckQueue().applyTier(ward, tier);
+        }
+    }
+
+    private void report(String message) {
+        if (requester instanceof Player player && !player.isOnline()) {
+            return; // Запросивший вышел - проверка всё равно доводится до конца
+        }
+        requester.sendMessage(message);
+    }
+
+    /**
+     * Осталось проверить в текущем проходе
+     */
+    public int getRemaining() {
+        return pass.size();
+    }
+
+    public long getCheckedCount() {
+        return checked;
+    }
+
+    public long getFixedCount() {
+        return fixed;
+    }
+
+    public long getRemovedCount() {
+        return removed;
+    }
+
+    public long getSkippedCount() {
+        return skipped;
+    }
+
+    public long getPassCount() {
+        return passes;
+    }
+}
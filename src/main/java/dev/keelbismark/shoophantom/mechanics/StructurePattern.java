@@ -0,0 +1,190 @@
+package dev.keelbismark.shoophantom.mechanics;
+
+import org.bukkit.Material;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiled block pattern: flat arrays of offsets relative to the pot and the
+ * materials accepted at each of them.
+ * <p>
+ * Cells are split into consecutive groups (a mast is one group, the Tier 1 cross or
+ * the copper ring is a single group). Matching walks the arrays in declaration order
+ * and stops at the first mismatch, and never allocates, so the same instance serves
+ * the main thread and the validation workers. Instances are immutable.
+ */
+public class StructurePattern {
+
+    private final int[] offsets;            // dx, dy, dz подряд для каждой клетки
+    private final Set<Material>[] materials;
+    private final int[] groupEnds;          // Конец (не включая) каждой группы клеток
+
+    private StructurePattern(int[] offsets, Set<Material>[] materials, int[] groupEnds) {
+        this.offsets = offsets;
+        this.materials = materials;
+        this.groupEnds = groupEnds;
+    }
+
+    /**
+     * Все клетки совпадают (проверка останавливается на первом несовпадении)
+     */
+    public boolean matches(StructureView structure) {
+        for (int i = 0, o = 0; i < materials.length; i++, o += 3) {
+            if (!materials[i].contains(structure.getType(offsets[o], offsets[o + 1], offsets[o + 2]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Число совпавших клеток
+     */
+    public int countMatches(StructureView structure) {
+        int count = 0;
+        for (int i = 0, o = 0; i < materials.length; i++, o += 3) {
+            if (materials[i].contains(structure.getType(offsets[o], offsets[o + 1], offsets[o + 2]))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Маска целых групп: бит i - все клетки группы i совпали
+     */
+    public int groupMask(StructureView structure) {
+        int mask = 0;
+        int start = 0;
+        for (int g = 0; g < groupEnds.length; g++) {
+            int end = groupEnds[g];
+            boolean intact = true;
+            for (int i = start; i < end; i++) {
+                int o = i * 3;
+                if (!materials[i].contains(structure.getType(offsets[o], offsets[o + 1], offsets[o + 2]))) {
+                    intact = false;
+                    break;
+                }
+            }
+            if (intact) {
+                mask |= 1 << g;
+            }
+            start = end;
+        }
+        return mask;
+    }
+
+    /**
+     * Повёрнутая копия шаблона: quarterTurns раз на 90° вокруг оси Y
+     */
+    public StructurePattern rotated(int quarterTurns) {
+        int[] result = offsets.clone();
+        for (int turn = 0; turn < (quarterTurns & 3); turn++) {
+            for (int o = 0; o < result.length; o += 3) {
+                int x = result[o];
+                result[o] = -result[o + 2];
+                result[o + 2] = x;
+            }
+        }
+        return new StructurePattern(result, materials, groupEnds);
+    }
+
+    /**
+     * Совпадает ли шаблон с другим с точностью до порядка клеток
+     */
+    public boolean sameCells(StructurePattern other) {
+        return cellMap().equals(other.cellMap());
+    }
+
+    private Map<List<Integer>, Set<Material>> cellMap() {
+        Map<List<Integer>, Set<Material>> cells = new HashMap<>();
+        for (int i = 0, o = 0; i < materials.length; i++, o += 3) {
+            cells.put(List.of(offsets[o], offsets[o + 1], offsets[o + 2]), materials[i]);
+        }
+        return cells;
+    }
+
+    public int size() {
+        return materials.length;
+    }
+
+    public int groupCount() {
+        return groupEnds.length;
+    }
+
+    public int dx(int cell) {
+        return offsets[cell * 3];
+    }
+
+    public int dy(int cell) {
+        return offsets[cell * 3 + 1];
+    }
+
+    public int dz(int cell) {
+        return offsets[cell * 3 + 2];
+    }
+
+    /**
+     * Последняя клетка группы (например, верхушка мачты)
+     */
+    public int lastCellOf(int group) {
+        return groupEnds[group] - 1;
+    }
+
+    /**
+     * Сборщик шаблона: клетки добавляются в порядке проверки
+     */
+    public static class Builder {
+
+        private final List<int[]> cells = new ArrayList<>();
+        private final List<Set<Material>> cellMaterials = new ArrayList<>();
+        private final List<Integer> groupEnds = new ArrayList<>();
+
+        public Builder cell(int dx, int dy, int dz, Set<Material> accepted) {
+            cells.add(new int[] {dx, dy, dz});
+            cellMaterials.add(accepted.isEmpty() ? EnumSet.noneOf(Material.class) : EnumSet.copyOf(accepted));
+            return this;
+        }
+
+        public Builder cell(int dx, int dy, int dz, Material accepted) {
+            return cell(dx, dy, dz, EnumSet.of(accepted));
+        }
+
+        /**
+         * Закрыть текущую группу клеток
+         */
+        public Builder endGroup() {
+            int end = cells.size();
+            if (groupEnds.isEmpty() ? end > 0 : end > groupEnds.get(groupEnds.size() - 1)) {
+                groupEnds.add(end);
+            }
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public StructurePattern build() {
+            endGroup();
+
+            int[] offsets = new int[cells.size() * 3];
+            Set<Material>[] materials = new Set[cells.size()];
+            for (int i = 0; i < cells.size(); i++) {
+                int[] cell = cells.get(i);
+                offsets[i * 3] = cell[0];
+                offsets[i * 3 + 1] = cell[1];
+                offsets[i * 3 + 2] = cell[2];
+                materials[i] = cellMaterials.get(i);
+            }
+
+            int[] ends = new int[groupEnds.size()];
+            for (int g = 0; g < ends.length; g++) {
+                ends[g] = groupEnds.get(g);
+            }
+            return new StructurePattern(offsets, materials, ends);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package dev.keelbismark.shoophantom.mechanics;
+
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+
+import dev.keelbismark.shoophantom.ShooPhantom;
+import dev.keelbismark.shoophantom.data.Ward;
+import dev.keelbismark.shoophantom.data.WardManager;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Coalesces structure re-evaluation of wards touched by block changes.
+ * <p>
+ * Block handlers only mark the wards whose footprint contains the changed block.
+ * The set is drained once on the next tick, after every change of the current tick
+ * has been applied to the world, so an explosion or piston array that touches dozens
+ * of structure blocks costs one tier calculation, at most one save and one owner
+ * message per ward. Main thread only.
+ */
+public class StructureRecheckQueue {
+    
+    private final ShooPhantom plugin;
+    private final Set<UUID> dirty = new LinkedHashSet<>();
+    private boolean drainScheduled;
+    private long marked;
+    private long evaluated;
+    
+    public StructureRecheckQueue(ShooPhantom plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * Отметить обереги, в структуру которых входит изменённый блок
+     */
+    public void markChanged(Block block) {
+        plugin.getStructureValidator().markChanged(block); // Снимки в работе по этому чанку устарели
+        
+        for (Ward ward : plugin.getWardManager().getWardsByFootprint(block.getWorld().getName(),
+                block.getX(), block.getY(), block.getZ())) {
+            marked++;
+            plugin.getStructureStateCache().invalidate(ward.getId());
+            if (dirty.add(ward.getId()) && !drainScheduled) {
+                drainScheduled = true;
+                plugin.getServer().getScheduler().runTask(plugin, this::drain);
+            }
+        }
+    }
+    
+    /**
+     * Пересчитать все отмеченные обереги, по одному разу на каждый
+     */
+    public void drain() {
+        drainScheduled = false;
+        if (dirty.isEmpty()) {
+            return;
+        }
+        
+        UUID[] ids = dirty.toArray(new UUID[0]);
+        dirty.clear();
+        WardManager wardManager = plugin.getWardManager();
+        
+        for (UUID id : ids) {
+            Ward ward = wardManager.getWard(id);
+            if (ward == null) {
+                continue; // Горшок разрушен в этом же тике
+            }
+            
+            World world = plugin.getServer().getWorld(ward.getWorld());
+            if (world == null || !wardManager.isStructureLoaded(ward)) {
+                plugin.getStructureStateCache().invalidate(id);
+                continue;
+            }
+            
+            // Блоки уже изменены - заодно обновляем кэш, который мог заполниться до изменения
+            evaluated++;
+            int newTier = plugin.getStructureStateCache().refresh(ward, world).tier();
+            if (newTier != ward.getTier()) {
+                applyTier(ward, newTier);
+            }
+        }
+    }
+    
+    /**
+     * Применить новый Tier оберега и уведомить владельца
+     */
+    public Ward applyTier(Ward ward, int newTier) {
+        return applyTier(ward, newTier, null);
+    }
+    
+    /**
+     * Применить новый Tier оберега и уведомить владельца указанным сообщением
+     * @param message complete owner message from {@code Messages}, or null for the generic tier up/down message
+     */
+    public Ward applyTier(Ward ward, int newTier, String message) {
+        int oldTier = ward.getTier();
+        Ward updatedWard = plugin.getWardManager().updateWardTier(ward, newTier);
+        
+        // Уведомление владельца
+        if (message != null) {
+            notifyOwner(updatedWard, message);
+        } else if (newTier > oldTier) {
+            // Улучшение
+            notifyOwner(updatedWard, plugin.getMessages().get("prefix") + "§a✨ Tier оберега повышен до " + newTier + "!");
+        } else {
+            // Ухудшение
+            notifyOwner(updatedWard, plugin.getMessages().get("prefix") + "§c⚠ Tier оберега понижен до " + newTier + "!");
+        }
+        return updatedWard;
+    }
+    
+    /**
+     * Сколько раз обереги отмечались изменёнными
+     */
+    public long getMarkedCount() {
+        return marked;
+    }
+    
+    /**
+     * Сколько пересчётов Tier выполнено после объединения
+     */
+    public long getEvaluatedCount() {
+        return evaluated;
+    }
+    
+    /**
+     * Уведомление владельца
+     */
+    private void notifyOwner(Ward ward, String message) {
+        Player owner = plugin.getServer().getPlayer(ward.getOwnerUUID());
+        if (owner != null && owner.isOnline()) {
+            owner.sendMessage(message);
+        }
+    }
+}
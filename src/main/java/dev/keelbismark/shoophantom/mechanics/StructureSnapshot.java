@@ -0,0 +1,100 @@
+package dev.keelbismark.shoophantom.mechanics;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.Map;
+
+/**
+ * Immutable copy of the chunks spanned by one ward structure.
+ * <p>
+ * The pot, Tier 1 cross, copper ring and masts lie within
+ * {@link StructureTemplate#getReach()} blocks of the pot horizontally, so the
+ * footprint touches one to four chunks. Capturing must happen on the main thread;
+ * reading is thread-safe. Blocks outside the captured chunks read as air.
+ */
+public class StructureSnapshot implements StructureView {
+
+    private final int potX;
+    private final int potY;
+    private final int potZ;
+    private final int minY;
+    private final int maxY;
+    private final int baseChunkX;
+    private final int baseChunkZ;
+    private final ChunkSnapshot[][] chunks;
+
+    private StructureSnapshot(int potX, int potY, int potZ, int minY, int maxY,
+                              int baseChunkX, int baseChunkZ, ChunkSnapshot[][] chunks) {
+        this.potX = potX;
+        this.potY = potY;
+        this.potZ = potZ;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.baseChunkX = baseChunkX;
+        this.baseChunkZ = baseChunkZ;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Снять снимок чанков структуры (только в основном потоке, чанки должны быть загружены)
+     * @param reach horizontal reach of the structure template
+     * @param cache snapshots already taken this tick, keyed by {@link #chunkKey}; wards sharing a chunk share its snapshot
+     */
+    public static StructureSnapshot capture(World world, int potX, int potY, int potZ, int reach, Map<Long, ChunkSnapshot> cache) {
+        int minChunkX = (potX - reach) >> 4;
+        int maxChunkX = (potX + reach) >> 4;
+        int minChunkZ = (potZ - reach) >> 4;
+        int maxChunkZ = (potZ + reach) >> 4;
+
+        ChunkSnapshot[][] chunks = new ChunkSnapshot[maxChunkX - minChunkX + 1][maxChunkZ - minChunkZ + 1];
+        for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+            for (int cz = minChunkZ; cz <= maxChunkZ; cz++) {
+                int chunkX = cx;
+                int chunkZ = cz;
+                chunks[cx - minChunkX][cz - minChunkZ] = cache.computeIfAbsent(chunkKey(cx, cz),
+                    k -> world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false));
+            }
+        }
+
+        return new StructureSnapshot(potX, potY, potZ, world.getMinHeight(), world.getMaxHeight(),
+            minChunkX, minChunkZ, chunks);
+    }
+
+    /**
+     * Сколько чанков структуры ещё нет в кэше снимков
+     */
+    public static int countMissing(int potX, int potZ, int reach, Map<Long, ChunkSnapshot> cache) {
+        int missing = 0;
+        for (int cx = (potX - reach) >> 4; cx <= (potX + reach) >> 4; cx++) {
+            for (int cz = (potZ - reach) >> 4; cz <= (potZ + reach) >> 4; cz++) {
+                if (!cache.containsKey(chunkKey(cx, cz))) {
+                    missing++;
+                }
+            }
+        }
+        return missing;
+    }
+
+    @Override
+    public Material getType(int dx, int dy, int dz) {
+        int x = potX + dx;
+        int y = potY + dy;
+        int z = potZ + dz;
+        if (y < minY || y >= maxY) {
+            return Material.AIR;
+        }
+
+        int chunkX = (x >> 4) - baseChunkX;
+        int chunkZ = (z >> 4) - baseChunkZ;
+        if (chunkX < 0 || chunkX >= chunks.length || chunkZ < 0 || chunkZ >= chunks[0].length) {
+            return Material.AIR; // Шаблон сменился после снимка
+        }
+        return chunks[chunkX][chunkZ].getBlockType(x & 15, y, z & 15);
+    }
+
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+}
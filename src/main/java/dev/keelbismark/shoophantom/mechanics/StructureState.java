@@ -0,0 +1,29 @@
+package dev.keelbismark.shoophantom.mechanics;
+
+/**
+ * Structure facts of one ward, evaluated from its blocks in a single pass.
+ *
+ * @param tier        tier supported by the structure (0-3), independent of the stored ward tier
+ * @param aliveCopper alive blocks in the Tier 2 copper ring
+ * @param mastMask    bit {@code i} is set when mast {@code i} of the {@link StructureTemplate} is intact
+ * @param mastCount   number of masts in the template
+ */
+public record StructureState(int tier, int aliveCopper, int mastMask, int mastCount) {
+
+    public static final StructureState NONE = new StructureState(0, 0, 0, 0);
+
+    public int aliveMasts() {
+        return Integer.bitCount(mastMask);
+    }
+
+    public boolean isMastAlive(int index) {
+        return (mastMask & (1 << index)) != 0;
+    }
+
+    /**
+     * Мощность Tier 3 (0.0 - 1.0)
+     */
+    public double tier3Power() {
+        return mastCount > 0 ? aliveMasts() / (double) mastCount : 0.0;
+    }
+}
@@ -0,0 +1,100 @@
+package dev.keelbismark.shoophantom.mechanics;
+
+import org.bukkit.World;
+
+import dev.keelbismark.shoophantom.ShooPhantom;
+import dev.keelbismark.shoophantom.data.Ward;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-ward cache of {@link StructureState}.
+ * <p>
+ * Repel, particles and the ward info screen ask for the same structure facts many
+ * times between changes. An entry stays valid until a block of the ward's footprint
+ * changes ({@link StructureRecheckQueue#markChanged} invalidates it and refreshes it
+ * on the next tick, after the change is applied) or one of its chunks loads or unloads.
+ * Main thread only.
+ */
+public class StructureStateCache {
+    
+    private final ShooPhantom plugin;
+    private final TierCalculator tierCalculator;
+    private final Map<UUID, StructureState> states = new HashMap<>();
+    private long hits;
+    private long misses;
+    
+    public StructureStateCache(ShooPhantom plugin) {
+        this.plugin = plugin;
+        this.tierCalculator = new TierCalculator(plugin);
+    }
+    
+    /**
+     * Состояние структуры оберега (чанки структуры должны быть загружены)
+     */
+    public StructureState get(Ward ward, World world) {
+        StructureState state = states.get(ward.getId());
+        if (state != null) {
+            hits++;
+            return state;
+        }
+        
+        misses++;
+        return refresh(ward, world);
+    }
+    
+    /**
+     * Пересчитать состояние по блокам мира
+     */
+    public StructureState refresh(Ward ward, World world) {
+        StructureState state = tierCalculator.evaluate(ward.getLocation(world));
+        states.put(ward.getId(), state);
+        
+        WardDisplayManager displays = plugin.getWardDisplayManager();
+        if (displays != null) {
+            displays.onStructureState(ward.getId(), state);
+        }
+        return state;
+    }
+    
+    /**
+     * Сбросить состояние оберега
+     */
+    public void invalidate(UUID wardId) {
+        states.remove(wardId);
+    }
+    
+    /**
+     * Сбросить состояния оберегов, структура которых задевает чанк
+     */
+    public void invalidateChunk(String worldName, int chunkX, int chunkZ) {
+        if (states.isEmpty()) {
+            return;
+        }
+        
+        for (Ward ward : plugin.getWardManager().getWardsTouchingChunk(worldName, chunkX, chunkZ)) {
+            states.remove(ward.getId());
+        }
+    }
+    
+    /**
+     * Сбросить все состояния (шаблон структуры изменился)
+     */
+    public void clear() {
+        states.clear();
+    }
+    
+    public int size() {
+        return states.size();
+    }
+    
+    public long getHits() {
+        return hits;
+    }
+    
+    public long getMisses() {
+        return misses;
+    }
+}
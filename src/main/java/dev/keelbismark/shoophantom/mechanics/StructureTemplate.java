@@ -0,0 +1,325 @@
+package dev.keelbismark.shoophantom.mechanics;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import dev.keelbismark.shoophantom.config.ConfigManager;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Ward structure shape compiled from the {@code structure} section of the config.
+ * <p>
+ * The Tier 1 cross (or a custom {@code structure.tier1.pattern}), the Tier 2 ring
+ * ({@code ring-size}, {@code ring-y-offset}) and the Tier 3 masts
+ * ({@code mast-positions}, {@code mast-glass-height}) become {@link StructurePattern}s.
+ * With {@code structure.tier1.rotations} the Tier 1 pattern also matches in any of the
+ * four horizontal rotations; the ring and masts are placed explicitly and are not rotated.
+ * The template also derives the footprint (every block any pattern reads) and the
+ * horizontal reach used for chunk checks. The pot itself is always at the origin.
+ */
+public class StructureTemplate {
+
+    public static final int MAX_REACH = 8; // Дальше от горшка блоки шаблона не читаются
+    public static final int MAX_MASTS = 31; // Маска живых мачт - int
+
+    private final StructurePattern[] tier1Variants;
+    private final StructurePattern ring;
+    private final StructurePattern masts;
+    private final int[][] footprint;
+    private final int reach;
+
+    private StructureTemplate(StructurePattern[] tier1Variants, StructurePattern ring, StructurePattern masts) {
+        this.tier1Variants = tier1Variants;
+        this.ring = ring;
+        this.masts = masts;
+
+        Set<List<Integer>> cells = new LinkedHashSet<>();
+        cells.add(List.of(0, 0, 0));
+        for (StructurePattern variant : tier1Variants) {
+            addCells(cells, variant);
+        }
+        addCells(cells, ring);
+        addCells(cells, masts);
+
+        this.footprint = new int[cells.size()][];
+        int i = 0;
+        int maxReach = 0;
+        for (List<Integer> cell : cells) {
+            footprint[i++] = new int[] {cell.get(0), cell.get(1), cell.get(2)};
+            maxReach = Math.max(maxReach, Math.max(Math.abs(cell.get(0)), Math.abs(cell.get(2))));
+        }
+        this.reach = maxReach;
+    }
+
+    private static void addCells(Set<List<Integer>> cells, StructurePattern pattern) {
+        for (int c = 0; c < pattern.size(); c++) {
+            cells.add(List.of(pattern.dx(c), pattern.dy(c), pattern.dz(c)));
+        }
+    }
+
+    /**
+     * Собрать шаблон из конфига
+     */
+    public static StructureTemplate compile(ConfigManager config, Logger logger) {
+        StructurePattern tier1 = compileTier1(config, logger);
+
+        List<StructurePattern> variants = new ArrayList<>();
+        variants.add(tier1);
+        if (config.isTier1RotationsEnabled()) {
+            for (int turn = 1; turn < 4; turn++) {
+                StructurePattern rotated = tier1.rotated(turn);
+                if (variants.stream().noneMatch(rotated::sameCells)) {
+                    variants.add(rotated); // Симметричные повороты не дублируются
+                }
+            }
+        }
+
+        return new StructureTemplate(variants.toArray(new StructurePattern[0]),
+            compileRing(config, logger), compileMasts(config, logger));
+    }
+
+    /**
+     * Tier 1: крест вокруг горшка или свой шаблон
+     */
+    private static StructurePattern compileTier1(ConfigManager config, Logger logger) {
+        List<String> custom = config.getTier1Pattern();
+        if (!custom.isEmpty()) {
+            StructurePattern.Builder builder = new StructurePattern.Builder();
+            int parsed = 0;
+            for (String entry : custom) {
+                if (parseCell(builder, entry, logger)) {
+                    parsed++;
+                }
+            }
+            if (parsed > 0) {
+                return builder.build();
+            }
+            logger.warning("structure.tier1.pattern не содержит ни одной корректной клетки, используется крест above/below/sides/corners");
+        }
+
+        // Порядок проверки: верх, низ, стороны (В, З, Ю, С), углы
+        Material sides = config.getTier1SidesMaterial();
+        Material corners = config.getTier1CornersMaterial();
+        return new StructurePattern.Builder()
+            .cell(0, 1, 0, config.getTier1AboveMaterial())
+            .cell(0, -1, 0, config.getTier1BelowMaterial())
+            .cell(1, 0, 0, sides)
+            .cell(-1, 0, 0, sides)
+            .cell(0, 0, 1, sides)
+            .cell(0, 0, -1, sides)
+            .cell(1, 0, -1, corners)
+            .cell(-1, 0, -1, corners)
+            .cell(1, 0, 1, corners)
+            .cell(-1, 0, 1, corners)
+            .build();
+    }
+
+    /**
+     * Клетка шаблона в формате "dx dy dz МАТЕРИАЛ[|МАТЕРИАЛ...]"
+     */
+    private static boolean parseCell(StructurePattern.Builder builder, String entry, Logger logger) {
+        String[] parts = entry.trim().split("\\s+");
+        if (parts.length != 4) {
+            logger.warning("Некорректная клетка шаблона '" + entry + "', ожидается \"dx dy dz МАТЕРИАЛ\"");
+            return false;
+        }
+
+        int dx;
+        int dy;
+        int dz;
+        try {
+            dx = Integer.parseInt(parts[0]);
+            dy = Integer.parseInt(parts[1]);
+            dz = Integer.parseInt(parts[2]);
+        } catch (NumberFormatException e) {
+            logger.warning("Некорректные смещения в клетке шаблона '" + entry + "'");
+            return false;
+        }
+
+        if ((dx == 0 && dy == 0 && dz == 0) || Math.abs(dx) > MAX_REACH || Math.abs(dz) > MAX_REACH || Math.abs(dy) > MAX_REACH) {
+            logger.warning("Клетка шаблона '" + entry + "' совпадает с горшком или дальше " + MAX_REACH + " блоков от него");
+            return false;
+        }
+
+        Set<Material> accepted = EnumSet.noneOf(Material.class);
+        for (String name : parts[3].split("\\|")) {
+            try {
+                accepted.add(Material.valueOf(name.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                logger.warning("Неизвестный материал '" + name + "' в клетке шаблона '" + entry + "'");
+            }
+        }
+        if (accepted.isEmpty()) {
+            return false;
+        }
+
+        builder.cell(dx, dy, dz, accepted);
+        return true;
+    }
+
+    /**
+     * Tier 2: периметр квадрата ring-size x ring-size
+     */
+    private static StructurePattern compileRing(ConfigManager config, Logger logger) {
+        int size = config.getTier2RingSize();
+        if (size < 3 || size % 2 == 0 || size / 2 > MAX_REACH) {
+            logger.warning("Некорректный structure.tier2.ring-size: " + size + " (нужно нечётное от 3 до " + (MAX_REACH * 2 + 1) + "), используется 5");
+            size = 5;
+        }
+        int half = size / 2;
+        int y = config.getTier2RingYOffset();
+        Set<Material> alive = config.getTier2AliveMaterials();
+
+        StructurePattern.Builder builder = new StructurePattern.Builder();
+
+        // Северная и южная стороны целиком
+        for (int x = -half; x <= half; x++) {
+            builder.cell(x, y, -half, alive);
+        }
+        for (int x = -half; x <= half; x++) {
+            builder.cell(x, y, half, alive);
+        }
+
+        // Западная и восточная стороны без углов
+        for (int z = -half + 1; z <= half - 1; z++) {
+            builder.cell(-half, y, z, alive);
+        }
+        for (int z = -half + 1; z <= half - 1; z++) {
+            builder.cell(half, y, z, alive);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Tier 3: мачты из стекла высотой mast-glass-height с верхушкой
+     */
+    private static StructurePattern compileMasts(ConfigManager config, Logger logger) {
+        int height = config.getTier3MastGlassHeight();
+        if (height < 0 || height + 1 > MAX_REACH) {
+            logger.warning("Некорректный structure.tier3.mast-glass-height: " + height + ", используется 3");
+            height = 3;
+        }
+        Material glass = config.getTier3MastGlass();
+        Material top = config.getTier3MastTop();
+
+        StructurePattern.Builder builder = new StructurePattern.Builder();
+        int count = 0;
+        for (int[] pos : config.getTier3MastPositions()) {
+            if (count == MAX_MASTS) {
+                logger.warning("Слишком много мачт в structure.tier3.mast-positions, учитываются первые " + MAX_MASTS);
+                break;
+            }
+            if (Math.abs(pos[0]) > MAX_REACH || Math.abs(pos[2]) > MAX_REACH
+                    || Math.abs(pos[1]) > MAX_REACH || Math.abs(pos[1] + height) > MAX_REACH) {
+                logger.warning("Мачта [" + pos[0] + ", " + pos[1] + ", " + pos[2] + "] дальше " + MAX_REACH + " блоков от горшка, пропущена");
+                continue;
+            }
+
+            for (int y = 0; y < height; y++) {
+                builder.cell(pos[0], pos[1] + y, pos[2], glass);
+            }
+            builder.cell(pos[0], pos[1] + height, pos[2], top).endGroup();
+            count++;
+        }
+        return builder.build();
+    }
+
+    /**
+     * Совпадает ли крест (или свой шаблон) Tier 1 хотя бы в одном повороте
+     */
+    public boolean matchesTier1(StructureView structure) {
+        for (StructurePattern variant : tier1Variants) {
+            if (variant.matches(structure)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Живые блоки кольца Tier 2
+     */
+    public int countAliveRing(StructureView structure) {
+        return ring.countMatches(structure);
+    }
+
+    /**
+     * Маска живых мачт: бит i - мачта i
+     */
+    public int getAliveMastMask(StructureView structure) {
+        return masts.groupMask(structure);
+    }
+
+    public StructurePattern getRing() {
+        return ring;
+    }
+
+    public int getRingSize() {
+        return ring.size();
+    }
+
+    public int getMastCount() {
+        return masts.groupCount();
+    }
+
+    /**
+     * Смещение верхушки мачты i относительно горшка
+     * @return {dx, dy, dz}
+     */
+    public int[] getMastTop(int mast) {
+        int cell = masts.lastCellOf(mast);
+        return new int[] {masts.dx(cell), masts.dy(cell), masts.dz(cell)};
+    }
+
+    /**
+     * Смещения всех блоков структуры относительно горшка (включая сам горшок)
+     */
+    public int[][] getFootprint() {
+        return footprint;
+    }
+
+    /**
+     * Максимальное удаление блоков структуры от горшка по X/Z
+     */
+    public int getReach() {
+        return reach;
+    }
+
+    /**
+     * Совпадают ли наборы блоков структуры двух шаблонов
+     */
+    public boolean hasSameFootprint(StructureTemplate other) {
+        return reach == other.reach && toCells(footprint).equals(toCells(other.footprint));
+    }
+
+    private static Set<List<Integer>> toCells(int[][] offsets) {
+        Set<List<Integer>> cells = new LinkedHashSet<>();
+        for (int[] offset : offsets) {
+            cells.add(List.of(offset[0], offset[1], offset[2]));
+        }
+        return cells;
+    }
+
+    /**
+     * Загружены ли все чанки, которые занимает структура оберега
+     * Block reads on an unloaded chunk would load it synchronously, so callers skip or defer instead.
+     */
+    public boolean isLoaded(World world, int potX, int potZ) {
+        for (int cx = (potX - reach) >> 4; cx <= (potX + reach) >> 4; cx++) {
+            for (int cz = (potZ - reach) >> 4; cz <= (potZ + reach) >> 4; cz++) {
+                if (!world.isChunkLoaded(cx, cz)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
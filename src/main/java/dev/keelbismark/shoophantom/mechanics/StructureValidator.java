@@ -0,0 +1,332 @@
+package dev.keelbismark.shoophantom.mechanics;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import dev.keelbismark.shoophantom.ShooPhantom;
+import dev.keelbismark.shoophantom.data.Ward;
+import dev.keelbismark.shoophantom.data.WardManager;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous structure validation based on chunk snapshots.
+ * <p>
+ * Each tick the main thread captures snapshots for queued wards, at most
+ * {@code snapshotsPerTick} chunks per tick and one snapshot per chunk however many wards
+ * it holds. Tiers are computed on a worker pool and applied back on the main thread
+ * like {@link StructureRecheckQueue} applies them: the cached structure state is
+ * refreshed, the ward updated and its owner notified.
+ * A result is discarded and the ward re-queued when a block in its footprint changed
+ * after the snapshot was taken, or when its tier was changed by another path. Block
+ * changes arrive through {@link StructureRecheckQueue#markChanged}, which sees every
+ * event {@code BlockListener} tracks.
+ * Wards whose chunks are not loaded wait for the chunk instead of loading it.
+ */
+public class StructureValidator {
+    
+    private final ShooPhantom plugin;
+    private final TierCalculator tierCalculator;
+    private final ExecutorService workers;
+    private final int snapshotsPerTick;
+    
+    // Состояние основного потока
+    private final Queue<UUID> pending = new ArrayDeque<>();
+    private final Set<UUID> queued = new HashSet<>();
+    private final Map<UUID, Long> inFlight = new HashMap<>(); // ID -> номер изменения на момент снимка
+    private final Map<String, Map<Long, Long>> chunkChanges = new HashMap<>(); // Последнее изменение блоков по чанкам
+    private final Map<String, Map<Long, Set<UUID>>> awaitingChunks = new HashMap<>();
+    private final Map<UUID, Set<Long>> awaitingByWard = new HashMap<>(); // Обратный индекс: оберег -> ожидаемые чанки
+    private long changeSequence;
+    
+    private final Queue<Result> results = new ConcurrentLinkedQueue<>();
+    
+    private long validated;
+    private long changed;
+    private long stale;
+    
+    public StructureValidator(ShooPhantom plugin) {
+        this.plugin = plugin;
+        this.tierCalculator = new TierCalculator(plugin);
+        this.snapshotsPerTick = Math.max(1, plugin.getConfigManager().getValidationSnapshotsPerTick());
+        
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, plugin.getConfigManager().getValidationThreads()), r -> {
+            Thread thread = new Thread(r, "ShooPhantom-Structure-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Поставить оберег в очередь проверки структуры
+     */
+    public void submit(Ward ward) {
+        clearAwaiting(ward.getWorld(), ward.getId());
+        if (queued.add(ward.getId())) {
+            pending.add(ward.getId());
+        }
+    }
+    
+    /**
+     * Поставить в очередь все переданные обереги
+     */
+    public void submitAll(Collection<Ward> wards) {
+        for (Ward ward : wards) {
+            submit(ward);
+        }
+    }
+    
+    /**
+     * Один тик: применить готовые результаты и снять снимки для следующих оберегов
+     */
+    public void tick() {
+        Result result;
+        while ((result = results.poll()) != null) {
+            apply(result);
+        }
+        
+        if (pending.isEmpty()) {
+            return;
+        }
+        
+        WardManager wardManager = plugin.getWardManager();
+        Map<Long, ChunkSnapshot> snapshots = new HashMap<>(); // Снимки живут один тик
+        String snapshotWorld = null;
+        int reach = plugin.getConfigManager().getStructureTemplate().getReach();
+        
+        while (!pending.isEmpty()) {
+            Ward ward = wardManager.getWard(pending.peek());
+            if (ward == null) {
+                queued.remove(pending.poll());
+                continue;
+            }
+            
+            World world = plugin.getServer().getWorld(ward.getWorld());
+            if (world == null || !wardManager.isStructureLoaded(ward)) {
+                pending.poll();
+                queued.remove(ward.getId());
+                awaitChunks(ward, world);
+                continue;
+            }
+            
+            if (!world.getName().equals(snapshotWorld)) {
+                snapshots.clear();
+                snapshotWorld = world.getName();
+            }
+            
+            int missing = StructureSnapshot.countMissing(ward.getX(), ward.getZ(), reach, snapshots);
+            if (missing > 0 && snapshots.size() + missing > snapshotsPerTick && !snapshots.isEmpty()) {
+                break; // Бюджет тика исчерпан
+            }
+            
+            pending.poll();
+            queued.remove(ward.getId());
+            
+            StructureSnapshot snapshot = StructureSnapshot.capture(world, ward.getX(), ward.getY(), ward.getZ(), reach, snapshots);
+            int expectedTier = ward.getTier();
+            inFlight.put(ward.getId(), changeSequence);
+            workers.execute(() -> results.add(new Result(ward.getId(), expectedTier, tierCalculator.calculateTier(snapshot))));
+        }
+    }
+    
+    /**
+     * Применить результат проверки в основном потоке
+     */
+    private void apply(Result result) {
+        Long capturedAt = inFlight.remove(result.wardId());
+        WardManager wardManager = plugin.getWardManager();
+        Ward ward = wardManager.getWard(result.wardId());
+        
+        if (capturedAt != null && ward != null) {
+            if (ward.getTier() != result.expectedTier() || changedSince(ward, capturedAt)) {
+                // Структура или tier изменились после снимка - проверяем заново
+                stale++;
+                submit(ward);
+            } else {
+                validated++;
+                if (result.tier() != ward.getTier()) {
+                    changed++;
+                    if (plugin.getConfigManager().isDebugEnabled()) {
+                        plugin.getLogger().info("Проверка структуры: оберег " + ward.getId()
+                            + " Tier " + ward.getTier() + " -> " + result.tier());
+                    }
+                    
+                    // Мачты и мощность в кэше устарели вместе с Tier
+                    World world = plugin.getServer().getWorld(ward.getWorld());
+                    if (world != null && wardManager.isStructureLoaded(ward)) {
+                        plugin.getStructureStateCache().refresh(ward, world);
+                    } else {
+                        plugin.getStructureStateCache().invalidate(ward.getId());
+                    }
+                    plugin.getStructureRecheckQueue().applyTier(ward, result.tier());
+                }
+            }
+        }
+        
+        if (inFlight.isEmpty()) {
+            chunkChanges.clear(); // Метки изменений нужны только пока есть снимки в работе
+        }
+    }
+    
+    /**
+     * Были ли изменения блоков в чанках структуры после снимка
+     */
+    private boolean changedSince(Ward ward, long capturedAt) {
+        Map<Long, Long> changes = chunkChanges.get(ward.getWorld());
+        if (changes == null) {
+            return false;
+        }
+        
+        int reach = plugin.getConfigManager().getStructureTemplate().getReach();
+        for (int cx = (ward.getX() - reach) >> 4; cx <= (ward.getX() + reach) >> 4; cx++) {
+            for (int cz = (ward.getZ() - reach) >> 4; cz <= (ward.getZ() + reach) >> 4; cz++) {
+                Long changedAt = changes.get(StructureSnapshot.chunkKey(cx, cz));
+                if (changedAt != null && changedAt > capturedAt) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Дождаться загрузки чанков структуры вместо их загрузки
+     */
+    private void awaitChunks(Ward ward, World world) {
+        clearAwaiting(ward.getWorld(), ward.getId());
+        
+        Map<Long, Set<UUID>> chunks = awaitingChunks.computeIfAbsent(ward.getWorld(), k -> new HashMap<>());
+        Set<Long> keys = new HashSet<>();
+        int reach = plugin.getConfigManager().getStructureTemplate().getReach();
+        for (int cx = (ward.getX() - reach) >> 4; cx <= (ward.getX() + reach) >> 4; cx++) {
+            for (int cz = (ward.getZ() - reach) >> 4; cz <= (ward.getZ() + reach) >> 4; cz++) {
+                if (world == null || !world.isChunkLoaded(cx, cz)) {
+                    long key = StructureSnapshot.chunkKey(cx, cz);
+                    chunks.computeIfAbsent(key, k -> new HashSet<>()).add(ward.getId());
+                    keys.add(key);
+                }
+            }
+        }
+        
+        if (!keys.isEmpty()) {
+            awaitingByWard.put(ward.getId(), keys);
+        }
+    }
+    
+    /**
+     * Убрать оберег из ожидания всех чанков структуры
+     */
+    private void clearAwaiting(String worldName, UUID wardId) {
+        Set<Long> keys = awaitingByWard.remove(wardId);
+        Map<Long, Set<UUID>> chunks = awaitingChunks.get(worldName);
+        if (keys == null || chunks == null) {
+            return;
+        }
+        
+        for (long key : keys) {
+            Set<UUID> ids = chunks.get(key);
+            if (ids != null && ids.remove(wardId) && ids.isEmpty()) {
+                chunks.remove(key);
+            }
+        }
+        if (chunks.isEmpty()) {
+            awaitingChunks.remove(worldName);
+        }
+    }
+    
+    /**
+     * Оберег удалён - забыть его ожидание чанков
+     */
+    public void forget(Ward ward) {
+        clearAwaiting(ward.getWorld(), ward.getId());
+    }
+    
+    /**
+     * Загрузка чанка - вернуть в очередь ждавшие его обереги
+     */
+    public void onChunkLoad(String worldName, int chunkX, int chunkZ) {
+        Map<Long, Set<UUID>> chunks = awaitingChunks.get(worldName);
+        if (chunks == null) {
+            return;
+        }
+        
+        Set<UUID> ids = chunks.remove(StructureSnapshot.chunkKey(chunkX, chunkZ));
+        if (ids == null) {
+            return;
+        }
+        
+        for (UUID id : ids) {
+            Ward ward = plugin.getWardManager().getWard(id);
+            if (ward != null) {
+                submit(ward); // Остальные чанки проверит tick()
+            } else {
+                clearAwaiting(worldName, id);
+            }
+        }
+    }
+    
+    /**
+     * Отметить изменение блока, если есть снимки в работе
+     * Called by {@link StructureRecheckQueue#markChanged} for every block change it sees.
+     */
+    void markChanged(Block block) {
+        if (inFlight.isEmpty()) {
+            return;
+        }
+        
+        chunkChanges.computeIfAbsent(block.getWorld().getName(), k -> new HashMap<>())
+            .put(StructureSnapshot.chunkKey(block.getX() >> 4, block.getZ() >> 4), ++changeSequence);
+    }
+    
+    public int getQueuedCount() {
+        return pending.size();
+    }
+    
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+    
+    public long getValidatedCount() {
+        return validated;
+    }
+    
+    public long getChangedCount() {
+        return changed;
+    }
+    
+    public long getStaleCount() {
+        return stale;
+    }
+    
+    /**
+     * Остановить рабочие потоки
+     */
+    public void shutdown() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private record Result(UUID wardId, int expectedTier, int tier) {
+    }
+}
@@ -0,0 +1,18 @@
+package dev.keelbismark.shoophantom.mechanics;
+
+import org.bukkit.Material;
+
+/**
+ * Read-only view of the blocks around a ward pot.
+ * <p>
+ * Coordinates are offsets from the pot, so the same structure rules can be evaluated
+ * against the live world on the main thread or against chunk snapshots on a worker thread.
+ */
+@FunctionalInterface
+public interface StructureView {
+
+    /**
+     * Тип блока со смещением относительно горшка
+     */
+    Material getType(int dx, int dy, int dz);
+}
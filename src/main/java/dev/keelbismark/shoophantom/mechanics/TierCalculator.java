@@ -2,12 +2,10 @@ package dev.keelbismark.shoophantom.mechanics;
 
 import org.bukkit.Location;
 import org.bukkit.Material;
-import org.bukkit.block.Block;
+import org.bukkit.World;
 
 import dev.keelbismark.shoophantom.ShooPhantom;
 
-import java.util.Set;
-
 public class TierCalculator {
     
     private final ShooPhantom plugin;
@@ -16,6 +14,10 @@ public class TierCalculator {
         this.plugin = plugin;
     }
     
+    private StructureTemplate template() {
+        return plugin.getConfigManager().getStructureTemplate();
+    }
+    
     /**
      * Рассчитать Tier оберега на основе структуры
      */
@@ -25,64 +27,105 @@ public class TierCalculator {
             return 0;
         }
         
+        return calculateStructureTier(view(potLocation));
+    }
+    
+    /**
+     * Рассчитать Tier оберега по произвольному представлению блоков (например, снимку чанков)
+     * Safe to call off the main thread when the view does not touch the live world.
+     */
+    public int calculateTier(StructureView structure) {
+        if (structure.getType(0, 0, 0) != Material.DECORATED_POT) {
+            return 0;
+        }
+        
+        return calculateStructureTier(structure);
+    }
+    
+    /**
+     * Все данные о структуре за один проход: Tier, живая медь и живые мачты
+     */
+    public StructureState evaluate(Location potLocation) {
+        if (potLocation.getBlock().getType() != Material.DECORATED_POT) {
+            return StructureState.NONE;
+        }
+        return evaluateStructure(view(potLocation));
+    }
+    
+    /**
+     * Все данные о структуре за один проход по произвольному представлению блоков
+     */
+    public StructureState evaluate(StructureView structure) {
+        if (structure.getType(0, 0, 0) != Material.DECORATED_POT) {
+            return StructureState.NONE;
+        }
+        return evaluateStructure(structure);
+    }
+    
+    private StructureState evaluateStructure(StructureView structure) {
+        boolean tier1 = checkTier1Structure(structure);
+        int aliveCopper = countAliveCopperBlocks(structure);
+        int mastMask = getAliveMastMask(structure);
+        
+        int tier;
+        if (!tier1) {
+            tier = 0;
+        } else if (aliveCopper < plugin.getConfigManager().getTier2MinAliveBlocks()) {
+            tier = 1;
+        } else if (mastMask == 0) {
+            tier = 2;
+        } else {
+            tier = 3;
+        }
+        return new StructureState(tier, aliveCopper, mastMask, template().getMastCount());
+    }
+    
+    /**
+     * Tier структуры вокруг уже проверенного горшка
+     */
+    private int calculateStructureTier(StructureView structure) {
         // Проверка Tier 1
-        if (!checkTier1Structure(potLocation)) {
+        if (!checkTier1Structure(structure)) {
             return 0;
         }
         
         // Проверка Tier 2
-        if (!checkTier2Structure(potLocation)) {
+        if (!checkTier2Structure(structure)) {
             return 1; // Tier 1 валиден, но Tier 2 нет
         }
         
         // Проверка Tier 3
-        if (!checkTier3Structure(potLocation)) {
+        if (!checkTier3Structure(structure)) {
             return 2; // Tier 2 валиден, но Tier 3 нет
         }
         
         return 3; // Все структуры валидны
     }
     
+    /**
+     * Блоки мира вокруг горшка
+     */
+    private static StructureView view(Location pot) {
+        World world = pot.getWorld();
+        int x = pot.getBlockX();
+        int y = pot.getBlockY();
+        int z = pot.getBlockZ();
+        return (dx, dy, dz) -> world.getBlockAt(x + dx, y + dy, z + dz).getType();
+    }
+    
     /**
      * Проверка структуры Tier 1
      */
-    private boolean checkTier1Structure(Location pot) {
-        Block above = pot.clone().add(0, 1, 0).getBlock();
-        Block below = pot.clone().add(0, -1, 0).getBlock();
-        
-        Block sideEast = pot.clone().add(1, 0, 0).getBlock();
-        Block sideWest = pot.clone().add(-1, 0, 0).getBlock();
-        Block sideSouth = pot.clone().add(0, 0, 1).getBlock();
-        Block sideNorth = pot.clone().add(0, 0, -1).getBlock();
-        
-        Block cornerNE = pot.clone().add(1, 0, -1).getBlock();
-        Block cornerNW = pot.clone().add(-1, 0, -1).getBlock();
-        Block cornerSE = pot.clone().add(1, 0, 1).getBlock();
-        Block cornerSW = pot.clone().add(-1, 0, 1).getBlock();
-        
-        Material expectedAbove = plugin.getConfigManager().getTier1AboveMaterial();
-        Material expectedBelow = plugin.getConfigManager().getTier1BelowMaterial();
-        Material expectedSides = plugin.getConfigManager().getTier1SidesMaterial();
-        Material expectedCorners = plugin.getConfigManager().getTier1CornersMaterial();
-        
-        return above.getType() == expectedAbove &&
-               below.getType() == expectedBelow &&
-               sideEast.getType() == expectedSides &&
-               sideWest.getType() == expectedSides &&
-               sideSouth.getType() == expectedSides &&
-               sideNorth.getType() == expectedSides &&
-               cornerNE.getType() == expectedCorners &&
-               cornerNW.getType() == expectedCorners &&
-               cornerSE.getType() == expectedCorners &&
-               cornerSW.getType() == expectedCorners;
+    private boolean checkTier1Structure(StructureView structure) {
+        return template().matchesTier1(structure);
     }
     
     /**
      * Проверка структуры Tier 2
      */
-    private boolean checkTier2Structure(Location pot) {
-        // Проверка кольца 5x5 на уровне Y-1
-        int aliveBlocks = countAliveCopperBlocks(pot);
+    private boolean checkTier2Structure(StructureView structure) {
+        // Живые блоки кольца шаблона
+        int aliveBlocks = countAliveCopperBlocks(structure);
         int minAlive = plugin.getConfigManager().getTier2MinAliveBlocks();
         
         return aliveBlocks >= minAlive;
@@ -92,53 +135,22 @@ public class TierCalculator {
      * Подсчет живых медных блоков в кольце
      */
     public int countAliveCopperBlocks(Location pot) {
-        int count = 0;
-        Set<Material> aliveMaterials = plugin.getConfigManager().getTier2AliveMaterials();
-        
-        // Периметр 5x5 на уровне Y-1
-        int y = -1;
-        
-        // Северная сторона
-        for (int x = -2; x <= 2; x++) {
-            Block block = pot.clone().add(x, y, -2).getBlock();
-            if (aliveMaterials.contains(block.getType())) {
-                count++;
-            }
-        }
-        
-        // Южная сторона
-        for (int x = -2; x <= 2; x++) {
-            Block block = pot.clone().add(x, y, 2).getBlock();
-            if (aliveMaterials.contains(block.getType())) {
-                count++;
-            }
-        }
-        
-        // Западная сторона (без углов)
-        for (int z = -1; z <= 1; z++) {
-            Block block = pot.clone().add(-2, y, z).getBlock();
-            if (aliveMaterials.contains(block.getType())) {
-                count++;
-            }
-        }
-        
-        // Восточная сторона (без углов)
-        for (int z = -1; z <= 1; z++) {
-            Block block = pot.clone().add(2, y, z).getBlock();
-            if (aliveMaterials.contains(block.getType())) {
-                count++;
-            }
-        }
-        
-        return count;
+        return countAliveCopperBlocks(view(pot));
+    }
+    
+    /**
+     * Подсчет живых медных блоков в кольце
+     */
+    public int countAliveCopperBlocks(StructureView structure) {
+        return template().countAliveRing(structure);
     }
     
     /**
      * Проверка структуры Tier 3
      */
-    private boolean checkTier3Structure(Location pot) {
-        // Проверка 4 мачт
-        int aliveMasts = countAliveMasts(pot);
+    private boolean checkTier3Structure(StructureView structure) {
+        // Живые мачты шаблона
+        int aliveMasts = countAliveMasts(structure);
         
         // Хотя бы одна мачта должна быть живой для Tier 3
         return aliveMasts > 0;
@@ -148,50 +160,29 @@ public class TierCalculator {
      * Подсчет живых мачт
      */
     public int countAliveMasts(Location pot) {
-        int count = 0;
-        
-        int[][] mastPositions = {
-            {2, 0, 2},
-            {2, 0, -2},
-            {-2, 0, 2},
-            {-2, 0, -2}
-        };
-        
-        Material glass = plugin.getConfigManager().getTier3MastGlass();
-        Material top = plugin.getConfigManager().getTier3MastTop();
-        
-        for (int[] pos : mastPositions) {
-            if (checkMast(pot, pos[0], pos[2], glass, top)) {
-                count++;
-            }
-        }
-        
-        return count;
+        return countAliveMasts(view(pot));
     }
     
     /**
-     * Проверка одной мачты
+     * Подсчет живых мачт
      */
-    private boolean checkMast(Location pot, int x, int z, Material glass, Material top) {
-        // Проверка стеклянных блоков (y = 0, 1, 2)
-        for (int y = 0; y <= 2; y++) {
-            Block block = pot.clone().add(x, y, z).getBlock();
-            if (block.getType() != glass) {
-                return false;
-            }
-        }
-        
-        // Проверка верхушки (y = 3)
-        Block topBlock = pot.clone().add(x, 3, z).getBlock();
-        return topBlock.getType() == top;
+    public int countAliveMasts(StructureView structure) {
+        return Integer.bitCount(getAliveMastMask(structure));
+    }
+    
+    /**
+     * Маска живых мачт: бит i - мачта i шаблона
+     */
+    public int getAliveMastMask(StructureView structure) {
+        return template().getAliveMastMask(structure);
     }
     
     /**
      * Рассчитать мощность Tier 3 (0.0 - 1.0)
      */
     public double calculateTier3Power(Location pot) {
-        int aliveMasts = countAliveMasts(pot);
-        return aliveMasts / 4.0; // 0.25, 0.5, 0.75 или 1.0
+        int mastCount = template().getMastCount();
+        return mastCount > 0 ? countAliveMasts(pot) / (double) mastCount : 0.0; // Доля живых мачт шаблона
     }
     
     /**
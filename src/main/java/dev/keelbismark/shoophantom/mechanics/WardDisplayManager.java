@@ -0,0 +1,258 @@
+package dev.keelbismark.shoophantom.mechanics;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.BlockDisplay;
+import org.bukkit.entity.Display;
+import org.bukkit.util.Transformation;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import dev.keelbismark.shoophantom.ShooPhantom;
+import dev.keelbismark.shoophantom.data.Ward;
+import dev.keelbismark.shoophantom.data.WardManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ward visuals made of block display entities ({@code visuals.backend: displays}).
+ * <p>
+ * The Tier 2 ring is drawn as four thin glass strips over the ring blocks, Tier 3 adds
+ * an end rod beam from every alive mast top to the lightning rod. Displays do not tick
+ * and the client renders them, so a ward costs nothing between changes: entities are
+ * respawned only when the ward's tier, activity, alive masts or the structure template
+ * change. They are spawned non-persistent - nothing is left in the world files if the
+ * plugin is removed - so they vanish with their chunk and are recreated when it loads.
+ * Main thread only; updates requested from other threads are queued to the next tick.
+ */
+public class WardDisplayManager {
+
+    private static final float STRIP_THICKNESS = 0.0625f; // Полоса кольца - 1 пиксель
+    private static final float STRIP_LIFT = 0.01f;        // Чтобы полоса не мерцала на грани блока
+    private static final Display.Brightness FULL_BRIGHT = new Display.Brightness(15, 15);
+
+    private final ShooPhantom plugin;
+    private final BlockData ringBlock = Material.LIGHT_BLUE_STAINED_GLASS.createBlockData();
+    private final BlockData beamBlock = Material.END_ROD.createBlockData();
+    private final Map<UUID, Rendered> rendered = new HashMap<>();
+
+    // Запросы из асинхронной загрузки оберегов
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private boolean updating;
+    private long spawned;
+
+    /**
+     * Что сейчас нарисовано для оберега
+     */
+    private record Rendered(int tier, int mastMask, StructureTemplate template, List<BlockDisplay> entities) {}
+
+    public WardDisplayManager(ShooPhantom plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Привести визуал оберега к его текущему состоянию (оберег удалён - убрать визуал)
+     */
+    public void update(UUID wardId) {
+        if (!plugin.getServer().isPrimaryThread()) {
+            pending.add(wardId);
+            if (flushScheduled.compareAndSet(false, true)) {
+                plugin.getServer().getScheduler().runTask(plugin, this::flushPending);
+            }
+            return;
+        }
+
+        updating = true;
+        try {
+            render(wardId);
+        } finally {
+            updating = false;
+        }
+    }
+
+    private void flushPending() {
+        flushScheduled.set(false);
+        for (UUID wardId : new ArrayList<>(pending)) {
+            pending.remove(wardId);
+            update(wardId);
+        }
+    }
+
+    private void render(UUID wardId) {
+        WardManager wardManager = plugin.getWardManager();
+        Ward ward = wardManager.getWard(wardId);
+        if (ward == null) {
+            remove(wardId);
+            return;
+        }
+
+        World world = plugin.getServer().getWorld(ward.getWorld());
+        if (world == null || !world.isChunkLoaded(ward.getX() >> 4, ward.getZ() >> 4)) {
+            rendered.remove(wardId); // Сущности выгружены вместе с чанком
+            return;
+        }
+
+        int tier = ward.isActive() ? ward.getTier() : 0;
+        int mastMask = 0;
+        if (tier >= 3) {
+            if (!wardManager.isStructureLoaded(ward)) {
+                return; // Мачты не прочитать - дорисуем при загрузке их чанков
+            }
+            mastMask = plugin.getStructureStateCache().get(ward, world).mastMask();
+        }
+
+        StructureTemplate template = plugin.getConfigManager().getStructureTemplate();
+        Rendered current = rendered.get(wardId);
+        if (current != null && current.tier() == tier && current.mastMask() == mastMask && current.template() == template) {
+            return;
+        }
+
+        remove(wardId);
+        if (tier < 2) {
+            return; // Tier 1 остаётся на частицах
+        }
+
+        Location pot = new Location(world, ward.getX(), ward.getY(), ward.getZ());
+        List<BlockDisplay> entities = new ArrayList<>();
+        spawnRing(pot, template, entities);
+        if (tier >= 3) {
+            for (int mast = 0; mast < template.getMastCount(); mast++) {
+                if ((mastMask & (1 << mast)) != 0) {
+                    entities.add(spawnBeam(pot, template.getMastTop(mast)));
+                }
+            }
+        }
+        spawned += entities.size();
+        rendered.put(wardId, new Rendered(tier, mastMask, template, entities));
+    }
+
+    /**
+     * Кольцо Tier 2 - четыре полосы по сторонам квадрата
+     */
+    private void spawnRing(Location pot, StructureTemplate template, List<BlockDisplay> entities) {
+        StructurePattern ring = template.getRing();
+        int half = 0;
+        for (int cell = 0; cell < ring.size(); cell++) {
+            half = Math.max(half, Math.abs(ring.dx(cell)));
+        }
+        float y = ring.dy(0) + 1 + STRIP_LIFT;
+        float side = half * 2 + 1;
+
+        entities.add(spawnStrip(pot, -half, y, -half, side, 1));           // Север
+        entities.add(spawnStrip(pot, -half, y, half, side, 1));            // Юг
+        entities.add(spawnStrip(pot, -half, y, -half + 1, 1, side - 2));   // Запад
+        entities.add(spawnStrip(pot, half, y, -half + 1, 1, side - 2));    // Восток
+    }
+
+    private BlockDisplay spawnStrip(Location pot, float x, float y, float z, float sizeX, float sizeZ) {
+        return spawn(pot, ringBlock, new Transformation(
+            new Vector3f(x, y, z), new Quaternionf(), new Vector3f(sizeX, STRIP_THICKNESS, sizeZ), new Quaternionf()));
+    }
+
+    /**
+     * Луч Tier 3 - стержень эндера от центра верхушки мачты к центру громоотвода
+     */
+    private BlockDisplay spawnBeam(Location pot, int[] top) {
+        Vector3f from = new Vector3f(top[0] + 0.5f, top[1] + 0.5f, top[2] + 0.5f);
+        Vector3f direction = new Vector3f(0.5f, 1.5f, 0.5f).sub(from);
+
+        // Модель блока вытягивается по Y и поворачивается вдоль луча вокруг центра основания
+        Quaternionf rotation = new Quaternionf().rotationTo(0, 1, 0, direction.x, direction.y, direction.z);
+        Vector3f translation = from.sub(rotation.transform(new Vector3f(0.5f, 0, 0.5f)));
+
+        return spawn(pot, beamBlock, new Transformation(
+            translation, rotation, new Vector3f(1, direction.length(), 1), new Quaternionf()));
+    }
+
+    private BlockDisplay spawn(Location pot, BlockData block, Transformation transformation) {
+        return pot.getWorld().spawn(pot, BlockDisplay.class, display -> {
+            display.setPersistent(false);
+            display.setBlock(block);
+            display.setTransformation(transformation);
+            display.setBrightness(FULL_BRIGHT);
+            display.setShadowRadius(0);
+        });
+    }
+
+    /**
+     * Состояние структуры пересчитано - перерисовать лучи, если изменились живые мачты
+     */
+    public void onStructureState(UUID wardId, StructureState state) {
+        Rendered current = rendered.get(wardId);
+        if (!updating && current != null && current.tier() >= 3 && current.mastMask() != state.mastMask()) {
+            update(wardId);
+        }
+    }
+
+    /**
+     * Загрузка чанка - нарисовать обереги, которые в нём стоят или ждали его для мачт
+     */
+    public void onChunkLoad(String worldName, int chunkX, int chunkZ) {
+        for (Ward ward : plugin.getWardManager().getWardsTouchingChunk(worldName, chunkX, chunkZ)) {
+            update(ward.getId());
+        }
+    }
+
+    /**
+     * Выгрузка чанка - несохраняемые сущности исчезают вместе с ним
+     */
+    public void onChunkUnload(String worldName, int chunkX, int chunkZ) {
+        for (Ward ward : plugin.getWardManager().getWardsTouchingChunk(worldName, chunkX, chunkZ)) {
+            if (ward.getX() >> 4 == chunkX && ward.getZ() >> 4 == chunkZ) {
+                rendered.remove(ward.getId());
+            }
+        }
+    }
+
+    /**
+     * Нарисовать все обереги в памяти (после запуска)
+     */
+    public void updateAll() {
+        for (Ward ward : plugin.getWardManager().getAllWards()) {
+            update(ward.getId());
+        }
+    }
+
+    /**
+     * Убрать визуал оберега
+     */
+    public void remove(UUID wardId) {
+        Rendered current = rendered.remove(wardId);
+        if (current == null) {
+            return;
+        }
+        for (BlockDisplay display : current.entities()) {
+            if (display.isValid()) {
+                display.remove();
+            }
+        }
+    }
+
+    /**
+     * Убрать все сущности (выключение плагина)
+     */
+    public void removeAll() {
+        for (UUID wardId : new ArrayList<>(rendered.keySet())) {
+            remove(wardId);
+        }
+    }
+
+    public int getRenderedCount() {
+        return rendered.size();
+    }
+
+    public long getSpawnedCount() {
+        return spawned;
+    }
+}
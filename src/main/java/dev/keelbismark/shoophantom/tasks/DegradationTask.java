@@ -15,19 +15,16 @@ public class DegradationTask extends BukkitRunnable {
     
     @Override
     public void run() {
+        // Страховка к учёту по событиям меди; Tier 3 обрабатывается по очереди в MastDegradationTask
+        plugin.getDegradationManager().retainCopperTracking(plugin.getWardManager().getAllWards());
         for (Ward ward : plugin.getWardManager().getAllWards()) {
-            // Проверка деградации Tier 2
-            Ward updatedWard = plugin.getDegradationManager().checkTier2Degradation(ward);
-            if (updatedWard != ward) {
-                plugin.getWardManager().updateWardReference(updatedWard);
-                ward = updatedWard;
-            }
-
-            // Проверка деградации Tier 3
-            updatedWard = plugin.getDegradationManager().checkTier3Degradation(ward);
-            if (updatedWard != ward) {
-                plugin.getWardManager().updateWardReference(updatedWard);
+            // Кольцо в выгруженных чанках не меняется - не грузим их ради проверки
+            if (ward.getTier() < 2 || !plugin.getWardManager().isStructureLoaded(ward)) {
+                continue;
             }
+            
+            // Проверка деградации Tier 2 (понижение сохраняется через очередь пересчёта структуры)
+            plugin.getDegradationManager().checkTier2Degradation(ward);
         }
     }
 }
@@ -5,6 +5,9 @@ import org.bukkit.scheduler.BukkitRunnable;
 import dev.keelbismark.shoophantom.ShooPhantom;
 import dev.keelbismark.shoophantom.data.Ward;
 
+/**
+ * Обработка топлива только у оберегов, чья мембрана догорела к этому тику
+ */
 public class FuelConsumptionTask extends BukkitRunnable {
     
     private final ShooPhantom plugin;
@@ -15,8 +18,10 @@ public class FuelConsumptionTask extends BukkitRunnable {
     
     @Override
     public void run() {
-        for (Ward ward : plugin.getWardManager().getAllWards()) {
-            plugin.getFuelManager().processFuelConsumption(ward);
+        for (Ward ward : plugin.getWardManager().pollFuelDue(System.currentTimeMillis())) {
+            Ward updatedWard = plugin.getFuelManager().processFuelConsumption(ward);
+            // Фиксируем состояние - оберег снова встанет в очередь по новому времени горения
+            plugin.getWardManager().updateWardReference(updatedWard);
         }
     }
 }
@@ -0,0 +1,41 @@
+package dev.keelbismark.shoophantom.tasks;
+
+import org.bukkit.scheduler.BukkitRunnable;
+
+import dev.keelbismark.shoophantom.ShooPhantom;
+import dev.keelbismark.shoophantom.data.Ward;
+
+/**
+ * Выгорание мачт Tier 3 только у оберегов, чьё время деградации наступило
+ */
+public class MastDegradationTask extends BukkitRunnable {
+    
+    private final ShooPhantom plugin;
+    
+    public MastDegradationTask(ShooPhantom plugin) {
+        this.plugin = plugin;
+    }
+    
+    @Override
+    public void run() {
+        long now = System.currentTimeMillis();
+        long retryAt = now + plugin.getConfigManager().getTier3PauseDeferMinutes() * 60 * 1000L;
+        
+        for (Ward ward : plugin.getWardManager().pollDegradationDue(now)) {
+            if (ward.getNextDegradeTime() != 0 && !plugin.getWardManager().isStructureLoaded(ward)) {
+                // Не грузим чанк ради мачт - вернёмся к оберегу при его загрузке
+                plugin.getWardManager().deferUntilChunkLoad(ward);
+                continue;
+            }
+            
+            Ward updatedWard = plugin.getDegradationManager().checkTier3Degradation(ward);
+            if (updatedWard != ward) {
+                // Новое время деградации (или Tier 2) - оберег переставится в очереди сам
+                plugin.getWardManager().updateWardReference(updatedWard);
+            } else {
+                // Не удалось обработать - проверим позже
+                plugin.getWardManager().retryDegradation(ward, retryAt);
+            }
+        }
+    }
+}
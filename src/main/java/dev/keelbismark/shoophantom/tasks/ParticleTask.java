@@ -1,161 +1,211 @@
 package dev.keelbismark.shoophantom.tasks;
 
-import org.bukkit.Color;
-import org.bukkit.Location;
 import org.bukkit.Particle;
 import org.bukkit.World;
+import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitRunnable;
 
 import dev.keelbismark.shoophantom.ShooPhantom;
 import dev.keelbismark.shoophantom.data.Ward;
+import dev.keelbismark.shoophantom.mechanics.QualityController;
+import dev.keelbismark.shoophantom.mechanics.StructureState;
+import dev.keelbismark.shoophantom.mechanics.StructureTemplate;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Ward visuals, driven by the players who can see them.
+ * <p>
+ * Each run collects the active wards within {@code visuals.view-distance} of every
+ * online player and sends particles only to those players. Wards nobody is near are
+ * skipped entirely, so the packet count follows what players can actually see.
+ * Particle positions come from {@link WardGeometry}, built once per ward and tier,
+ * and are sent with the primitive per-player API, so drawing allocates nothing per point.
+ * With {@code visuals.backend: displays} only the Tier 1 sparks are particles; rings and
+ * beams belong to {@link dev.keelbismark.shoophantom.mechanics.WardDisplayManager}.
+ * Under server lag {@link QualityController} thins out particles and points, or skips runs.
+ */
 public class ParticleTask extends BukkitRunnable {
     
+    private static final int GEOMETRY_IDLE_RUNS = 300; // Точки оберегов без зрителей забываются через 5 минут
+    private static final int ALLOCATION_REPORT_RUNS = 60;
+    
     private final ShooPhantom plugin;
+    private final Map<UUID, WardGeometry> geometries = new HashMap<>();
     private int tickCounter = 0;
     
+    // Отладка: выделение памяти на прогон
+    private final com.sun.management.ThreadMXBean allocationBean;
+    private long allocatedBytes;
+    private int measuredRuns;
+    
     public ParticleTask(ShooPhantom plugin) {
         this.plugin = plugin;
+        
+        com.sun.management.ThreadMXBean bean = null;
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()) {
+            bean = threads;
+        }
+        this.allocationBean = bean;
     }
     
     @Override
     public void run() {
         tickCounter++;
-
-        for (Ward ward : plugin.getWardManager().getAllWards()) {
-            if (!ward.isActive()) {
+        
+        // Эффекты в зависимости от Tier (кольца и лучи могут рисоваться display-сущностями)
+        boolean particleBeams = plugin.getWardDisplayManager() == null;
+        boolean tier1Due = tickCounter % 100 == 0;
+        boolean tier2Due = particleBeams && tickCounter % 80 == 0;
+        boolean tier3Due = particleBeams && tickCounter % 60 == 0;
+        if (!tier1Due && !tier2Due && !tier3Due) {
+            return; // Ничего не рисуем - и зрителей не ищем
+        }
+        
+        // Сервер не успевает - косметика ждёт
+        QualityController quality = plugin.getQualityController();
+        if (quality != null && !quality.allowsCosmetics()) {
+            return;
+        }
+        int stride = quality != null ? quality.getPointStride() : 1;
+        
+        boolean measure = allocationBean != null && plugin.getConfigManager().isDebugEnabled();
+        long allocatedBefore = measure ? allocationBean.getCurrentThreadAllocatedBytes() : 0;
+        
+        StructureTemplate template = plugin.getConfigManager().getStructureTemplate();
+        for (Map.Entry<UUID, List<Player>> entry : collectViewers().entrySet()) {
+            Ward ward = plugin.getWardManager().getWard(entry.getKey());
+            if (ward == null) {
                 continue;
             }
-
-            World world = plugin.getServer().getWorld(ward.getWorld());
-            if (world == null) {
+            
+            boolean due = switch (ward.getTier()) {
+                case 1 -> tier1Due;
+                case 2 -> tier2Due;
+                case 3 -> tier3Due;
+                default -> false; // Play nothing
+            };
+            if (!due) {
                 continue;
             }
-
-            Location wardLoc = ward.getLocation(world);
-
-            // Эффекты в зависимости от Tier
-            int tickMod = switch (ward.getTier()) {
-                case 1 -> tickCounter % 100;
-                case 2 -> tickCounter % 80;
-                case 3 -> tickCounter % 60;
-                default -> Integer.MAX_VALUE; // Play nothing
-            };
-
-            if (tickMod == 0) {
-                switch (ward.getTier()) {
-                    case 1 -> playTier1Effect(wardLoc);
-                    case 2 -> playTier2Effect(wardLoc);
-                    case 3 -> playTier3Effect(wardLoc);
+            
+            WardGeometry geometry = geometryOf(ward, template);
+            List<Player> viewers = entry.getValue();
+            
+            switch (ward.getTier()) {
+                case 1 -> playTier1Effect(geometry, viewers, quality != null ? quality.scaleCount(3) : 3);
+                case 2 -> playTier2Effect(geometry, viewers, stride);
+                case 3 -> {
+                    // Эффекту нужны живые мачты - выгруженные чанки не трогаем
+                    World world = plugin.getServer().getWorld(ward.getWorld());
+                    if (world != null && plugin.getWardManager().isStructureLoaded(ward)) {
+                        playTier3Effect(geometry, plugin.getStructureStateCache().get(ward, world), viewers, stride);
+                    }
                 }
             }
         }
+        
+        if (tickCounter % GEOMETRY_IDLE_RUNS == 0) {
+            geometries.values().removeIf(geometry -> tickCounter - geometry.getLastUsedRun() > GEOMETRY_IDLE_RUNS);
+        }
+        
+        if (measure) {
+            reportAllocation(allocationBean.getCurrentThreadAllocatedBytes() - allocatedBefore);
+        }
     }
     
     /**
-     * Эффект Tier 1 - искры на громоотводе
+     * Активные обереги в зоне видимости игроков и их зрители
      */
-    private void playTier1Effect(Location wardLoc) {
-        Location lightning = wardLoc.clone().add(0, 1, 0);
-        lightning.getWorld().spawnParticle(
-            Particle.END_ROD, 
-            lightning, 
-            3, 
-            0.1, 0.3, 0.1, 
-            0.01
-        );
+    private Map<UUID, List<Player>> collectViewers() {
+        int viewDistance = plugin.getConfigManager().getVisualsViewDistance();
+        Map<UUID, List<Player>> viewers = new HashMap<>();
+        
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            for (Ward ward : plugin.getWardManager().getWardsInRadius(player.getLocation(), viewDistance)) {
+                if (ward.isActive()) {
+                    viewers.computeIfAbsent(ward.getId(), k -> new ArrayList<>(2)).add(player);
+                }
+            }
+        }
+        return viewers;
     }
     
     /**
-     * Эффект Tier 2 - волна по кольцу
+     * Точки эффектов оберега (пересчитываются при смене Tier или шаблона структуры)
      */
-    private void playTier2Effect(Location wardLoc) {
-        World world = wardLoc.getWorld();
-        int y = -1;
-        
-        // Периметр 5x5 на уровне Y-1
-        // Северная сторона
-        for (int x = -2; x <= 2; x++) {
-            Location loc = wardLoc.clone().add(x + 0.5, y + 1, -2 + 0.5);
-            world.spawnParticle(Particle.WAX_ON, loc, 2, 0.2, 0.2, 0.2, 0.01);
+    private WardGeometry geometryOf(Ward ward, StructureTemplate template) {
+        WardGeometry geometry = geometries.get(ward.getId());
+        if (geometry == null || !geometry.isValidFor(ward, template)) {
+            geometry = WardGeometry.build(ward, template);
+            geometries.put(ward.getId(), geometry);
         }
-        
-        // Южная сторона
-        for (int x = -2; x <= 2; x++) {
-            Location loc = wardLoc.clone().add(x + 0.5, y + 1, 2 + 0.5);
-            world.spawnParticle(Particle.WAX_ON, loc, 2, 0.2, 0.2, 0.2, 0.01);
-        }
-        
-        // Западная сторона (без углов)
-        for (int z = -1; z <= 1; z++) {
-            Location loc = wardLoc.clone().add(-2 + 0.5, y + 1, z + 0.5);
-            world.spawnParticle(Particle.WAX_ON, loc, 2, 0.2, 0.2, 0.2, 0.01);
+        geometry.markUsed(tickCounter);
+        return geometry;
+    }
+    
+    /**
+     * Эффект Tier 1 - искры на громоотводе
+     */
+    private void playTier1Effect(WardGeometry geometry, List<Player> viewers, int count) {
+        double[] point = geometry.getLightning();
+        for (int v = 0; v < viewers.size(); v++) {
+            viewers.get(v).spawnParticle(Particle.END_ROD, point[0], point[1], point[2], count, 0.1, 0.3, 0.1, 0.01);
         }
-        
-        // Восточная сторона (без углов)
-        for (int z = -1; z <= 1; z++) {
-            Location loc = wardLoc.clone().add(2 + 0.5, y + 1, z + 0.5);
-            world.spawnParticle(Particle.WAX_ON, loc, 2, 0.2, 0.2, 0.2, 0.01);
+    }
+    
+    /**
+     * Эффект Tier 2 - волна по кольцу (каждая stride-я точка)
+     */
+    private void playTier2Effect(WardGeometry geometry, List<Player> viewers, int stride) {
+        double[] ring = geometry.getRing();
+        for (int v = 0; v < viewers.size(); v++) {
+            Player viewer = viewers.get(v);
+            for (int p = 0; p < ring.length; p += 3 * stride) {
+                viewer.spawnParticle(Particle.WAX_ON, ring[p], ring[p + 1], ring[p + 2], 2, 0.2, 0.2, 0.2, 0.01);
+            }
         }
     }
     
     /**
-     * Эффект Tier 3 - лучи от мачт к центру
+     * Эффект Tier 3 - лучи от живых мачт к центру (каждая stride-я точка)
      */
-    private void playTier3Effect(Location wardLoc) {
-        World world = wardLoc.getWorld();
-        
-        int[][] mastPositions = {
-            {2, 0, 2},
-            {2, 0, -2},
-            {-2, 0, 2},
-            {-2, 0, -2}
-        };
-        
-        // Цвета для градиента
-        Color fromColor = Color.fromRGB(128, 0, 255); // Фиолетовый
-        Color toColor = Color.fromRGB(0, 128, 255);   // Синий
-        
-        for (int[] pos : mastPositions) {
-            Location mastTop = wardLoc.clone().add(pos[0], 3, pos[2]);
-            
-            // Проверяем, жива ли мачта (есть ли END_ROD)
-            if (mastTop.getBlock().getType() != plugin.getConfigManager().getTier3MastTop()) {
+    private void playTier3Effect(WardGeometry geometry, StructureState structure, List<Player> viewers, int stride) {
+        for (int mast = 0; mast < geometry.getBeamCount(); mast++) {
+            // Проверяем, жива ли мачта
+            if (!structure.isMastAlive(mast)) {
                 continue; // Мачта мертва
             }
             
-            // Рисуем луч от мачты к центру
-            drawBeam(mastTop, wardLoc.clone().add(0, 1, 0), fromColor, toColor);
+            double[] beam = geometry.getBeam(mast);
+            Particle.DustTransition[] colors = geometry.getBeamColors(mast);
+            for (int v = 0; v < viewers.size(); v++) {
+                Player viewer = viewers.get(v);
+                for (int p = 0, i = 0; p < beam.length; p += 3 * stride, i += stride) {
+                    viewer.spawnParticle(Particle.DUST_COLOR_TRANSITION, beam[p], beam[p + 1], beam[p + 2],
+                        1, 0, 0, 0, 0, colors[i]);
+                }
+            }
         }
     }
     
     /**
-     * Рисование луча между двумя точками
+     * Отладка: среднее выделение памяти за прогон с частицами
      */
-    private void drawBeam(Location from, Location to, Color fromColor, Color toColor) {
-        World world = from.getWorld();
-        double distance = from.distance(to);
-        int points = (int) (distance * 2); // Плотность частиц
-        
-        for (int i = 0; i < points; i++) {
-            double ratio = (double) i / points;
-            
-            Location particleLoc = from.clone().add(
-                (to.getX() - from.getX()) * ratio,
-                (to.getY() - from.getY()) * ratio,
-                (to.getZ() - from.getZ()) * ratio
-            );
-            
-            // Интерполяция цвета
-            int r = (int) (fromColor.getRed() + (toColor.getRed() - fromColor.getRed()) * ratio);
-            int g = (int) (fromColor.getGreen() + (toColor.getGreen() - fromColor.getGreen()) * ratio);
-            int b = (int) (fromColor.getBlue() + (toColor.getBlue() - fromColor.getBlue()) * ratio);
-            
-            Particle.DustTransition dustTransition = new Particle.DustTransition(
-                fromColor, toColor, 0.5f
-            );
-            
-            world.spawnParticle(Particle.DUST_COLOR_TRANSITION, particleLoc, 1, 0, 0, 0, 0, dustTransition);
+    private void reportAllocation(long bytes) {
+        allocatedBytes += bytes;
+        measuredRuns++;
+        if (measuredRuns == ALLOCATION_REPORT_RUNS) {
+            plugin.getLogger().info(String.format("Частицы: %,d байт на прогон (среднее за %d), точек оберегов в кэше: %d",
+                allocatedBytes / measuredRuns, measuredRuns, geometries.size()));
+            allocatedBytes = 0;
+            measuredRuns = 0;
         }
     }
 }
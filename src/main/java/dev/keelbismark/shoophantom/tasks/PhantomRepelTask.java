@@ -2,22 +2,29 @@ package dev.keelbismark.shoophantom.tasks;
 
 import org.bukkit.Location;
 import org.bukkit.World;
-import org.bukkit.entity.Entity;
 import org.bukkit.entity.Phantom;
 import org.bukkit.scheduler.BukkitRunnable;
 
 import dev.keelbismark.shoophantom.ShooPhantom;
 import dev.keelbismark.shoophantom.data.Ward;
 import dev.keelbismark.shoophantom.mechanics.EffectManager;
+import dev.keelbismark.shoophantom.mechanics.PhantomRegistry;
+import dev.keelbismark.shoophantom.mechanics.QualityController;
 import dev.keelbismark.shoophantom.mechanics.TierCalculator;
 
-import java.util.List;
+import java.util.ArrayList;
 
+/**
+ * Отталкивание фантомов оберегами Tier 3
+ * Walks the live phantoms from {@link PhantomRegistry} and looks up nearby Tier 3 wards
+ * in the spatial index, so the cost follows the phantom count, not the entity count.
+ */
 public class PhantomRepelTask extends BukkitRunnable {
     
     private final ShooPhantom plugin;
     private final EffectManager effectManager;
     private final TierCalculator tierCalculator;
+    private long runCounter = 0;
     
     public PhantomRepelTask(ShooPhantom plugin) {
         this.plugin = plugin;
@@ -27,33 +34,56 @@ public class PhantomRepelTask extends BukkitRunnable {
     
     @Override
     public void run() {
-        // Обработка всех активных Tier 3 оберегов
-        for (Ward ward : plugin.getWardManager().getAllWards()) {
-            if (ward.getTier() != 3 || !ward.isActive()) {
+        // Под нагрузкой отталкивание выполняется реже
+        QualityController quality = plugin.getQualityController();
+        if (quality != null && ++runCounter % quality.getRepelIntervalMultiplier() != 0) {
+            return;
+        }
+        
+        // Нет фантомов - нечего отталкивать
+        PhantomRegistry phantoms = plugin.getPhantomRegistry();
+        if (phantoms.isEmpty()) {
+            return;
+        }
+        
+        int maxRadius = tierCalculator.getTier3Radius(1.0);
+        for (String worldName : new ArrayList<>(phantoms.getWorlds())) {
+            World world = plugin.getServer().getWorld(worldName);
+            if (world == null) {
                 continue;
             }
             
-            World world = plugin.getServer().getWorld(ward.getWorld());
-            if (world == null) {
+            // Копия: урон может убить фантома и убрать его из реестра
+            for (Phantom phantom : new ArrayList<>(phantoms.getPhantoms(worldName))) {
+                repel(phantom, world, maxRadius);
+            }
+        }
+    }
+    
+    /**
+     * Применить эффекты всех активных Tier 3 оберегов, в радиус которых попал фантом
+     */
+    private void repel(Phantom phantom, World world, int maxRadius) {
+        Location phantomLoc = phantom.getLocation();
+        for (Ward ward : plugin.getWardManager().getWardsInRadius(phantomLoc, maxRadius)) {
+            if (ward.getTier() != 3 || !ward.isActive() || !phantom.isValid()) {
                 continue;
             }
             
-            Location wardLoc = ward.getLocation(world);
+            // Мощность считается по блокам мачт - выгруженные чанки не трогаем
+            if (!plugin.getWardManager().isStructureLoaded(ward)) {
+                continue;
+            }
             
-            // Получаем радиус с учетом мощности
-            double power = tierCalculator.calculateTier3Power(wardLoc);
+            // Радиус с учетом мощности (из кэша состояния структуры)
+            double power = plugin.getStructureStateCache().get(ward, world).tier3Power();
             int radius = tierCalculator.getTier3Radius(power);
             
-            // Находим всех фантомов в радиусе
-            List<Entity> entities = wardLoc.getNearbyEntities(radius, radius, radius)
-                    .stream()
-                    .filter(e -> e instanceof Phantom)
-                    .toList();
-            
-            // Применяем эффекты к каждому фантому
-            for (Entity entity : entities) {
-                Phantom phantom = (Phantom) entity;
-                effectManager.applyTier3Effects(ward, phantom, wardLoc);
+            double dx = ward.getX() - phantomLoc.getX();
+            double dy = ward.getY() - phantomLoc.getY();
+            double dz = ward.getZ() - phantomLoc.getZ();
+            if (dx * dx + dy * dy + dz * dz <= (double) radius * radius) {
+                effectManager.applyTier3Effects(ward, phantom, ward.getLocation(world), power);
             }
         }
     }
@@ -0,0 +1,153 @@
+package dev.keelbismark.shoophantom.tasks;
+
+import org.bukkit.Color;
+import org.bukkit.Particle;
+
+import dev.keelbismark.shoophantom.data.Ward;
+import dev.keelbismark.shoophantom.mechanics.StructurePattern;
+import dev.keelbismark.shoophantom.mechanics.StructureTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Particle positions of one ward, computed once per ward, tier and structure template.
+ * <p>
+ * Positions are absolute world coordinates packed as {@code x, y, z} triples, so
+ * rendering walks primitive arrays without cloning locations. Beam colors only
+ * depend on the number of points of a beam and are shared between wards.
+ * Main thread only.
+ */
+public class WardGeometry {
+
+    private static final Color BEAM_FROM = Color.fromRGB(128, 0, 255); // Фиолетовый
+    private static final Color BEAM_TO = Color.fromRGB(0, 128, 255);   // Синий
+    private static final Map<Integer, Particle.DustTransition[]> BEAM_COLORS = new HashMap<>();
+
+    private final int tier;
+    private final StructureTemplate template;
+    private final double[] lightning;
+    private final double[] ring;
+    private final double[][] beams;
+    private final Particle.DustTransition[][] beamColors;
+    private long lastUsedRun;
+
+    private WardGeometry(int tier, StructureTemplate template, double[] lightning, double[] ring,
+                         double[][] beams, Particle.DustTransition[][] beamColors) {
+        this.tier = tier;
+        this.template = template;
+        this.lightning = lightning;
+        this.ring = ring;
+        this.beams = beams;
+        this.beamColors = beamColors;
+    }
+
+    /**
+     * Рассчитать точки эффектов для Tier оберега
+     */
+    public static WardGeometry build(Ward ward, StructureTemplate template) {
+        double potX = ward.getX();
+        double potY = ward.getY();
+        double potZ = ward.getZ();
+
+        // Tier 1 - искры на громоотводе
+        double[] lightning = {potX, potY + 1, potZ};
+
+        // Tier 2 - над каждым блоком кольца
+        double[] ring = new double[0];
+        if (ward.getTier() >= 2) {
+            StructurePattern pattern = template.getRing();
+            ring = new double[pattern.size() * 3];
+            for (int cell = 0; cell < pattern.size(); cell++) {
+                ring[cell * 3] = potX + pattern.dx(cell) + 0.5;
+                ring[cell * 3 + 1] = potY + pattern.dy(cell) + 1;
+                ring[cell * 3 + 2] = potZ + pattern.dz(cell) + 0.5;
+            }
+        }
+
+        // Tier 3 - лучи от верхушек мачт к громоотводу
+        double[][] beams = new double[0][];
+        Particle.DustTransition[][] beamColors = new Particle.DustTransition[0][];
+        if (ward.getTier() >= 3) {
+            beams = new double[template.getMastCount()][];
+            beamColors = new Particle.DustTransition[template.getMastCount()][];
+            for (int mast = 0; mast < beams.length; mast++) {
+                int[] top = template.getMastTop(mast);
+                beams[mast] = beamPoints(potX + top[0], potY + top[1], potZ + top[2], potX, potY + 1, potZ);
+                beamColors[mast] = beamColors(beams[mast].length / 3);
+            }
+        }
+
+        return new WardGeometry(ward.getTier(), template, lightning, ring, beams, beamColors);
+    }
+
+    private static double[] beamPoints(double fromX, double fromY, double fromZ, double toX, double toY, double toZ) {
+        double dx = toX - fromX;
+        double dy = toY - fromY;
+        double dz = toZ - fromZ;
+        int points = (int) (Math.sqrt(dx * dx + dy * dy + dz * dz) * 2); // Плотность частиц
+
+        double[] result = new double[points * 3];
+        for (int i = 0; i < points; i++) {
+            double ratio = (double) i / points;
+            result[i * 3] = fromX + dx * ratio;
+            result[i * 3 + 1] = fromY + dy * ratio;
+            result[i * 3 + 2] = fromZ + dz * ratio;
+        }
+        return result;
+    }
+
+    /**
+     * Градиент цвета вдоль луча из points точек
+     */
+    private static Particle.DustTransition[] beamColors(int points) {
+        return BEAM_COLORS.computeIfAbsent(points, n -> {
+            Particle.DustTransition[] colors = new Particle.DustTransition[n];
+            for (int i = 0; i < n; i++) {
+                double ratio = (double) i / n;
+                Color color = Color.fromRGB(
+                    (int) (BEAM_FROM.getRed() + (BEAM_TO.getRed() - BEAM_FROM.getRed()) * ratio),
+                    (int) (BEAM_FROM.getGreen() + (BEAM_TO.getGreen() - BEAM_FROM.getGreen()) * ratio),
+                    (int) (BEAM_FROM.getBlue() + (BEAM_TO.getBlue() - BEAM_FROM.getBlue()) * ratio)
+                );
+                colors[i] = new Particle.DustTransition(color, BEAM_TO, 0.5f);
+            }
+            return colors;
+        });
+    }
+
+    /**
+     * Подходят ли точки к текущему состоянию оберега
+     */
+    public boolean isValidFor(Ward ward, StructureTemplate currentTemplate) {
+        return tier == ward.getTier() && template == currentTemplate;
+    }
+
+    public double[] getLightning() {
+        return lightning;
+    }
+
+    public double[] getRing() {
+        return ring;
+    }
+
+    public double[] getBeam(int mast) {
+        return beams[mast];
+    }
+
+    public Particle.DustTransition[] getBeamColors(int mast) {
+        return beamColors[mast];
+    }
+
+    public int getBeamCount() {
+        return beams.length;
+    }
+
+    public long getLastUsedRun() {
+        return lastUsedRun;
+    }
+
+    public void markUsed(long run) {
+        lastUsedRun = run;
+    }
+}
@@ -0,0 +1,106 @@
+package dev.keelbismark.shoophantom.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Min-heap of IDs ordered by the time they are due.
+ * <p>
+ * Rescheduling or cancelling an ID does not search the heap: the authoritative due
+ * time is kept in a map and heap entries that no longer match it are skipped when
+ * polled. The heap is rebuilt once stale entries outnumber live ones, so its size
+ * stays proportional to the number of scheduled IDs. Polling costs O(k log n) for
+ * k due entries, independent of how many IDs are waiting.
+ */
+public class DueTimeQueue {
+
+    private final PriorityQueue<Entry> heap;
+    private final Map<UUID, Long> dueTimes;
+
+    public DueTimeQueue() {
+        this.heap = new PriorityQueue<>();
+        this.dueTimes = new HashMap<>();
+    }
+
+    /**
+     * Запланировать (или перенести) ID на указанное время
+     */
+    public synchronized void schedule(UUID id, long dueTime) {
+        Long previous = dueTimes.put(id, dueTime);
+        if (previous == null || previous != dueTime) {
+            heap.add(new Entry(dueTime, id));
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Снять ID с расписания
+     */
+    public synchronized void cancel(UUID id) {
+        if (dueTimes.remove(id) != null) {
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Забрать все ID, время которых наступило
+     * Returned IDs are no longer scheduled.
+     */
+    public synchronized List<UUID> pollDue(long now) {
+        List<UUID> due = new ArrayList<>();
+        Entry head;
+        while ((head = heap.peek()) != null && head.dueTime <= now) {
+            heap.poll();
+            Long current = dueTimes.get(head.id);
+            if (current != null && current == head.dueTime) {
+                dueTimes.remove(head.id);
+                due.add(head.id);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Время ближайшего события или Long.MAX_VALUE, если очередь пуста
+     */
+    public synchronized long peekDueTime() {
+        Entry head;
+        while ((head = heap.peek()) != null) {
+            Long current = dueTimes.get(head.id);
+            if (current != null && current == head.dueTime) {
+                return head.dueTime;
+            }
+            heap.poll(); // Устаревшая запись
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public synchronized int size() {
+        return dueTimes.size();
+    }
+
+    public synchronized void clear() {
+        heap.clear();
+        dueTimes.clear();
+    }
+
+    private void compactIfNeeded() {
+        if (heap.size() > 2 * dueTimes.size() + 64) {
+            heap.clear();
+            for (Map.Entry<UUID, Long> entry : dueTimes.entrySet()) {
+                heap.add(new Entry(entry.getValue(), entry.getKey()));
+            }
+        }
+    }
+
+    private record Entry(long dueTime, UUID id) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            return Long.compare(dueTime, other.dueTime);
+        }
+    }
+}
@@ -42,4 +42,12 @@ public class LocationUtils {
         
         return Math.sqrt(dx * dx + dz * dz);
     }
+    
+    /**
+     * Упаковать координаты блока в один long (26 бит X, 26 бит Z, 12 бит Y)
+     * Покрывает всю допустимую область мира, включая высоты -2048..2047.
+     */
+    public static long packBlock(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
 }
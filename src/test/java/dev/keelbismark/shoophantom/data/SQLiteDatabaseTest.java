@@ -0,0 +1,103 @@
+package dev.keelbismark.shoophantom.data;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.keelbismark.shoophantom.ShooPhantom;
+
+import java.io.File;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.*;
+
+@DisplayName("SQLiteDatabase Tests")
+public class SQLiteDatabaseTest {
+
+    private static final int SAVES = 500;
+
+    @TempDir
+    File tempDir;
+
+    @BeforeEach
+    void setUp() {
+        boolean driverAvailable;
+        try {
+            Class.forName("org.sqlite.JDBC");
+            driverAvailable = true;
+        } catch (ClassNotFoundException e) {
+            driverAvailable = false;
+        }
+        assumeTrue(driverAvailable, "SQLite JDBC driver is not on the test classpath");
+    }
+
+    private SQLiteDatabase open(String file, String journalMode, String synchronous) {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("database.sqlite.file", file);
+        config.set("database.sqlite.journal-mode", journalMode);
+        config.set("database.sqlite.synchronous", synchronous);
+
+        ShooPhantom mockPlugin = mock(ShooPhantom.class);
+        when(mockPlugin.getDataFolder()).thenReturn(tempDir);
+        when(mockPlugin.getConfig()).thenReturn(config);
+        when(mockPlugin.getLogger()).thenReturn(Logger.getLogger("SQLiteDatabaseTest"));
+
+        SQLiteDatabase database = new SQLiteDatabase(mockPlugin);
+        assertTrue(database.initialize());
+        return database;
+    }
+
+    private Ward createWard(int i) {
+        return new Ward(UUID.randomUUID(), UUID.randomUUID(), "world", i, 64, 0, 1, 1, 0, 0, i);
+    }
+
+    @Test
+    @DisplayName("Writes through the writer thread should be visible to the read connection after a flush")
+    void testReadYourWrites() {
+        SQLiteDatabase database = open("roundtrip.db", "WAL", "NORMAL");
+        try {
+            Ward ward = createWard(1);
+            database.saveWard(ward);
+            database.flush();
+
+            Ward loaded = database.loadWard(ward.getId());
+            assertNotNull(loaded);
+            assertEquals(ward.getX(), loaded.getX());
+
+            database.saveWards(List.of(createWard(2), createWard(3)));
+            assertEquals(3, database.loadAllWards().size());
+
+            database.deleteWard(ward.getId());
+            database.flush();
+            assertNull(database.loadWard(ward.getId()));
+        } finally {
+            database.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Every journal profile should persist all queued saves")
+    void testJournalProfiles() {
+        assertEquals(SAVES, saveAll("rollback.db", "DELETE", "FULL"));
+        assertEquals(SAVES, saveAll("wal.db", "WAL", "NORMAL"));
+    }
+
+    private int saveAll(String file, String journalMode, String synchronous) {
+        SQLiteDatabase database = open(file, journalMode, synchronous);
+        try {
+            for (int i = 0; i < SAVES; i++) {
+                database.saveWard(createWard(i));
+            }
+            database.flush();
+            return database.loadAllWards().size();
+        } finally {
+            database.close();
+        }
+    }
+}
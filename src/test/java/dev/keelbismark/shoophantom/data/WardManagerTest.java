@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Nested;
 
 import dev.keelbismark.shoophantom.ShooPhantom;
 import dev.keelbismark.shoophantom.config.ConfigManager;
+import dev.keelbismark.shoophantom.mechanics.StructureTemplate;
 
 import java.util.List;
 import java.util.UUID;
@@ -93,6 +94,12 @@ public class WardManagerTest {
         when(mockConfigManager.getTier2AliveMaterials()).thenReturn(Set.of());
         when(mockConfigManager.getTier3MastGlass()).thenReturn(org.bukkit.Material.TINTED_GLASS);
         when(mockConfigManager.getTier3MastTop()).thenReturn(org.bukkit.Material.END_ROD);
+        when(mockConfigManager.getTier2RingSize()).thenReturn(5);
+        when(mockConfigManager.getTier2RingYOffset()).thenReturn(-1);
+        when(mockConfigManager.getTier3MastGlassHeight()).thenReturn(3);
+        when(mockConfigManager.getTier3MastPositions()).thenReturn(java.util.List.of(new int[] {2, 0, 2}, new int[] {2, 0, -2}, new int[] {-2, 0, 2}, new int[] {-2, 0, -2}));
+        StructureTemplate template = StructureTemplate.compile(mockConfigManager, java.util.logging.Logger.getLogger("WardManagerTest"));
+        when(mockConfigManager.getStructureTemplate()).thenReturn(template);
         
         wardManager = new WardManager(mockPlugin);
     }
@@ -318,4 +325,115 @@ public class WardManagerTest {
             assertEquals(0, radius, "Invalid tier should return 0 radius");
         }
     }
+    
+    @Nested
+    @DisplayName("Autosave Tests")
+    class AutosaveTests {
+        
+        @Test
+        @DisplayName("Should save only wards changed since the last save")
+        void testSaveDirty_OnlyChangedWards() {
+            Ward unchanged = new Ward(UUID.randomUUID(), UUID.randomUUID(), "world", 100, 64, 200, 1, 50, 0, 0, 0);
+            Ward changed = new Ward(UUID.randomUUID(), UUID.randomUUID(), "world", 300, 64, 300, 1, 50, 0, 0, 0);
+            testWards.add(unchanged);
+            testWards.add(changed);
+            
+            WardManager newWardManager = new WardManager(mockPlugin);
+            Ward refueled = changed.withFuel(10);
+            newWardManager.updateWardReference(refueled);
+            
+            assertEquals(1, newWardManager.getDirtyCount(), "Only the updated ward should be dirty");
+            assertEquals(1, newWardManager.saveDirty(), "Autosave should write one ward");
+            verify(mockDatabase).saveWards(List.of(refueled));
+            
+            assertEquals(0, newWardManager.saveDirty(), "Nothing should be written without changes");
+        }
+    }
+    
+    @Nested
+    @DisplayName("Async Loading Tests")
+    class AsyncLoadingTests {
+        
+        private Runnable loader;
+        
+        private WardManager startAsyncLoading(List<String> worlds, List<Ward> stored) {
+            org.bukkit.scheduler.BukkitScheduler scheduler = mock(org.bukkit.scheduler.BukkitScheduler.class);
+            when(mockPlugin.getServer().getScheduler()).thenReturn(scheduler);
+            when(scheduler.runTaskAsynchronously(eq(mockPlugin), any(Runnable.class))).thenAnswer(invocation -> {
+                loader = invocation.getArgument(1);
+                return null;
+            });
+            when(mockConfigManager.isAsyncLoadingEnabled()).thenReturn(true);
+            when(mockConfigManager.getLoadingFetchSize()).thenReturn(500);
+            when(mockConfigManager.getLoadingFallback()).thenReturn("PROTECTED");
+            when(mockDatabase.loadWardWorlds()).thenReturn(worlds);
+            doAnswer(invocation -> {
+                java.util.function.Consumer<Ward> consumer = invocation.getArgument(2);
+                stored.forEach(consumer);
+                return null;
+            }).when(mockDatabase).streamWardsByWorld(anyString(), anyInt(), any());
+            
+            return new WardManager(mockPlugin);
+        }
+        
+        private Location at(World world, int x, int y, int z) {
+            Location location = mock(Location.class);
+            when(location.getWorld()).thenReturn(world);
+            when(location.getBlockX()).thenReturn(x);
+            when(location.getBlockY()).thenReturn(y);
+            when(location.getBlockZ()).thenReturn(z);
+            when(location.getX()).thenReturn((double) x);
+            when(location.getY()).thenReturn((double) y);
+            when(location.getZ()).thenReturn((double) z);
+            return location;
+        }
+        
+        @Test
+        @DisplayName("Ward updated while its world is loading should stay indexed after loading completes")
+        void testUpdateDuringLoading() {
+            Ward stored = new Ward(UUID.randomUUID(), UUID.randomUUID(), "world", 100, 64, 200, 1, 50, 0, 0, 0);
+            WardManager newWardManager = startAsyncLoading(List.of("world"), List.of(stored));
+            Location potLocation = at(mockWorld, 100, 64, 200);
+            when(mockDatabase.loadWardByLocation(potLocation)).thenReturn(stored);
+            
+            // Мир ещё не загружен - оберег читается из базы и заправляется
+            Ward fromDatabase = newWardManager.getWardByLocation(potLocation);
+            assertNotNull(fromDatabase, "Ward should be read from the database while loading");
+            newWardManager.updateWardReference(fromDatabase.withFuel(10));
+            
+            loader.run();
+            
+            assertTrue(newWardManager.isLoadingComplete());
+            Ward indexed = newWardManager.getWardByLocation(potLocation);
+            assertNotNull(indexed, "Ward should be found in the index after loading");
+            assertEquals(10, indexed.getFuel(), "The updated ward should not be replaced by the stored copy");
+            assertEquals(1, newWardManager.getWardsInRadius(potLocation, 8).size(), "Ward should be in the spatial index");
+            assertEquals(1, newWardManager.getWardsByWorld("world").size(), "Ward should be indexed by world");
+        }
+        
+        @Test
+        @DisplayName("World without wards should not fall back to PROTECTED while other worlds load")
+        void testEmptyWorldLoadedImmediately() {
+            WardManager newWardManager = startAsyncLoading(List.of("world"), List.of());
+            
+            World emptyWorld = mock(World.class);
+            when(emptyWorld.getName()).thenReturn("world_nether");
+            Location emptyLocation = at(emptyWorld, 0, 64, 0);
+            Location loadingLocation = at(mockWorld, 0, 64, 0);
+            
+            // Загрузчик прочитал список миров и ещё стримит "world"
+            List<Boolean> answers = new ArrayList<>();
+            doAnswer(invocation -> {
+                answers.add(newWardManager.isProtected(emptyLocation, 1));
+                answers.add(newWardManager.isProtected(loadingLocation, 1));
+                return null;
+            }).when(mockDatabase).streamWardsByWorld(eq("world"), anyInt(), any());
+            
+            loader.run();
+            
+            assertEquals(List.of(false, true), answers,
+                "Empty world should be loaded at once, the loading world should use the PROTECTED fallback");
+            assertTrue(newWardManager.isLoadingComplete());
+        }
+    }
 }
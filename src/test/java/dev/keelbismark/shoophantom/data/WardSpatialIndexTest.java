@@ -0,0 +1,152 @@
+package dev.keelbismark.shoophantom.data;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dev.keelbismark.shoophantom.ShooPhantom;
+import dev.keelbismark.shoophantom.config.ConfigManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("WardSpatialIndex Tests")
+public class WardSpatialIndexTest {
+
+    /**
+     * Плагин с пустым конфигом - все значения по умолчанию
+     */
+    private ShooPhantom createPlugin() {
+        ShooPhantom mockPlugin = mock(ShooPhantom.class);
+        when(mockPlugin.getConfig()).thenReturn(new YamlConfiguration());
+        when(mockPlugin.getLogger()).thenReturn(Logger.getLogger("WardSpatialIndexTest"));
+
+        ConfigManager config = new ConfigManager(mockPlugin);
+        when(mockPlugin.getConfigManager()).thenReturn(config);
+        return mockPlugin;
+    }
+
+    /**
+     * Индекс с футпринтом шаблона по умолчанию
+     */
+    private WardSpatialIndex createIndex() {
+        return new WardSpatialIndex(128, createPlugin().getConfigManager().getStructureTemplate().getFootprint());
+    }
+
+    private Ward createWard(int x, int y, int z) {
+        return new Ward(UUID.randomUUID(), UUID.randomUUID(), "world", x, y, z, 3, 0, 0, 0, 0);
+    }
+
+    @Test
+    @DisplayName("Only blocks of the structure footprint should map to the ward")
+    void testFootprintLookup() {
+        WardSpatialIndex index = createIndex();
+        Ward ward = createWard(100, 64, 100);
+        index.add(ward);
+
+        assertEquals(Set.of(ward.getId()), index.getFootprintAt(100, 64, 100), "Pot");
+        assertEquals(Set.of(ward.getId()), index.getFootprintAt(102, 63, 101), "Copper ring");
+        assertEquals(Set.of(ward.getId()), index.getFootprintAt(98, 67, 98), "Mast top");
+        assertTrue(index.getFootprintAt(101, 63, 101).isEmpty(), "Inside the ring is not part of the structure");
+        assertTrue(index.getFootprintAt(100, 66, 100).isEmpty(), "Above the lightning rod");
+
+        index.remove(ward);
+        assertTrue(index.getFootprintAt(100, 64, 100).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Overlapping footprints should keep both owners until each ward is removed")
+    void testOverlappingFootprints() {
+        WardSpatialIndex index = createIndex();
+        Ward left = createWard(0, 64, 0);
+        Ward right = createWard(4, 64, 0); // Кольца делят сторону x = 2
+        index.add(left);
+        index.add(right);
+
+        assertEquals(Set.of(left.getId(), right.getId()), index.getFootprintAt(2, 63, 0));
+
+        index.remove(left);
+        assertEquals(Set.of(right.getId()), index.getFootprintAt(2, 63, 0));
+        assertTrue(index.getFootprintAt(-2, 63, 0).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Indexed lookups should agree with a brute-force scan of all wards")
+    void testLookupsMatchBruteForce() {
+        Random random = new Random(42);
+        int side = 2048;
+        long now = System.currentTimeMillis();
+
+        List<Ward> loaded = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            int tier = 1 + random.nextInt(3);
+            boolean active = random.nextInt(4) != 0;
+            loaded.add(new Ward(UUID.randomUUID(), UUID.randomUUID(), "world",
+                random.nextInt(side), 40 + random.nextInt(60), random.nextInt(side), tier,
+                active ? 1 : 0, active ? now + 3_600_000L : 0, 0, now));
+        }
+
+        ShooPhantom mockPlugin = createPlugin();
+        Database mockDatabase = mock(Database.class);
+        when(mockPlugin.getDatabase()).thenReturn(mockDatabase);
+        when(mockDatabase.loadAllWards()).thenReturn(loaded);
+        World mockWorld = mock(World.class);
+        when(mockWorld.getName()).thenReturn("world");
+
+        WardManager wardManager = new WardManager(mockPlugin);
+
+        for (int i = 0; i < 2_000; i++) {
+            int x = random.nextInt(side);
+            int y = random.nextInt(160) - 16;
+            int z = random.nextInt(side);
+            Location point = new Location(mockWorld, x, y, z);
+
+            for (int minTier = 1; minTier <= 3; minTier++) {
+                boolean expected = false;
+                for (Ward ward : loaded) {
+                    if (ward.getTier() >= minTier && ward.isActive()
+                            && distanceSquared(ward, x, y, z) <= square(wardManager.getRadius(ward.getTier()))) {
+                        expected = true;
+                        break;
+                    }
+                }
+                assertEquals(expected, wardManager.isProtected(point, minTier),
+                    "isProtected(" + x + ", " + y + ", " + z + ", tier " + minTier + ")");
+            }
+
+            int radius = 100;
+            Set<UUID> expectedNearby = new HashSet<>();
+            for (Ward ward : loaded) {
+                if (distanceSquared(ward, x, y, z) <= square(radius)) {
+                    expectedNearby.add(ward.getId());
+                }
+            }
+            Set<UUID> nearby = new HashSet<>();
+            for (Ward ward : wardManager.getWardsInRadius(point, radius)) {
+                nearby.add(ward.getId());
+            }
+            assertEquals(expectedNearby, nearby, "getWardsInRadius(" + x + ", " + y + ", " + z + ")");
+        }
+    }
+
+    private static double distanceSquared(Ward ward, int x, int y, int z) {
+        double dx = ward.getX() - x;
+        double dy = ward.getY() - y;
+        double dz = ward.getZ() - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static double square(int value) {
+        return (double) value * value;
+    }
+}
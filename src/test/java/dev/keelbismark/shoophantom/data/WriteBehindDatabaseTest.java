@@ -0,0 +1,130 @@
+package dev.keelbismark.shoophantom.data;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dev.keelbismark.shoophantom.ShooPhantom;
+import dev.keelbismark.shoophantom.config.ConfigManager;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("WriteBehindDatabase Tests")
+public class WriteBehindDatabaseTest {
+
+    private Database mockDelegate;
+    private WriteBehindDatabase database;
+
+    @BeforeEach
+    void setUp() {
+        ShooPhantom mockPlugin = mock(ShooPhantom.class);
+        ConfigManager mockConfigManager = mock(ConfigManager.class);
+        mockDelegate = mock(Database.class);
+
+        when(mockPlugin.getConfigManager()).thenReturn(mockConfigManager);
+        when(mockPlugin.getLogger()).thenReturn(java.util.logging.Logger.getLogger("WriteBehindDatabaseTest"));
+        when(mockConfigManager.isDebugEnabled()).thenReturn(false);
+        when(mockDelegate.saveWards(any())).thenReturn(true);
+        when(mockDelegate.deleteWards(any())).thenReturn(true);
+
+        database = new WriteBehindDatabase(mockPlugin, mockDelegate);
+    }
+
+    private Ward createWard(UUID id, int fuel) {
+        return new Ward(id, UUID.randomUUID(), "world", 0, 64, 0, 1, fuel, 0, 0, 0);
+    }
+
+    @Test
+    @DisplayName("Should coalesce repeated saves of the same ward")
+    void testSavesAreCoalesced() {
+        UUID id = UUID.randomUUID();
+        Ward first = createWard(id, 1);
+        Ward second = createWard(id, 2);
+        Ward third = createWard(id, 3);
+
+        database.saveWard(first);
+        database.saveWard(second);
+        database.saveWard(third);
+
+        verify(mockDelegate, never()).saveWards(any());
+        assertEquals(1, database.getQueueDepth());
+        assertEquals(2, database.getCoalescedSaves());
+
+        database.flush();
+
+        verify(mockDelegate, times(1)).saveWards(any());
+        verify(mockDelegate).saveWards(List.of(third));
+        assertEquals(0, database.getQueueDepth());
+    }
+
+    @Test
+    @DisplayName("Delete should cancel a pending save")
+    void testDeleteCancelsPendingSave() {
+        UUID id = UUID.randomUUID();
+
+        database.saveWard(createWard(id, 1));
+        database.deleteWard(id);
+        database.flush();
+
+        verify(mockDelegate, never()).saveWards(any());
+        verify(mockDelegate).deleteWards(List.of(id));
+    }
+
+    @Test
+    @DisplayName("Reads should see pending writes without flushing")
+    void testReadsSeePendingWrites() {
+        UUID id = UUID.randomUUID();
+        Ward ward = createWard(id, 5);
+        Ward deleted = createWard(UUID.randomUUID(), 1);
+        when(mockDelegate.loadWard(deleted.getId())).thenReturn(deleted);
+        when(mockDelegate.loadWardsByOwner(deleted.getOwnerUUID())).thenReturn(List.of(deleted));
+        when(mockDelegate.loadWardsByOwner(ward.getOwnerUUID())).thenReturn(List.of());
+
+        database.saveWard(ward);
+        database.deleteWard(deleted.getId());
+
+        assertSame(ward, database.loadWard(id));
+        assertNull(database.loadWard(deleted.getId()), "Pending delete should hide the stored ward");
+        assertEquals(1, database.countWardsByOwner(ward.getOwnerUUID()));
+        assertEquals(0, database.countWardsByOwner(deleted.getOwnerUUID()));
+
+        verify(mockDelegate, never()).saveWards(any());
+        verify(mockDelegate, never()).deleteWards(any());
+        assertEquals(2, database.getQueueDepth());
+    }
+
+    @Test
+    @DisplayName("Failed flush should keep changes queued for the next flush")
+    void testFailedFlushKeepsQueue() {
+        Ward ward = createWard(UUID.randomUUID(), 5);
+        when(mockDelegate.saveWards(any())).thenReturn(false, true);
+
+        database.saveWard(ward);
+        database.flush();
+
+        assertEquals(1, database.getQueueDepth(), "Uncommitted save should stay queued");
+        assertEquals(1, database.getFailedFlushes());
+
+        database.flush();
+
+        verify(mockDelegate, times(2)).saveWards(List.of(ward));
+        assertEquals(0, database.getQueueDepth());
+    }
+
+    @Test
+    @DisplayName("Close should flush pending writes before closing the delegate")
+    void testCloseFlushes() {
+        Ward ward = createWard(UUID.randomUUID(), 5);
+
+        database.saveWard(ward);
+        database.close();
+
+        var order = inOrder(mockDelegate);
+        order.verify(mockDelegate).saveWards(List.of(ward));
+        order.verify(mockDelegate).close();
+    }
+}
@@ -63,6 +63,12 @@ public class DegradationManagerTest {
         lenient().when(mockConfig.getTier3MastGlass()).thenReturn(Material.TINTED_GLASS);
         lenient().when(mockConfig.getTier3RadiusMin()).thenReturn(64);
         lenient().when(mockConfig.getTier3RadiusMax()).thenReturn(128);
+        lenient().when(mockConfig.getTier2RingSize()).thenReturn(5);
+        lenient().when(mockConfig.getTier2RingYOffset()).thenReturn(-1);
+        lenient().when(mockConfig.getTier3MastGlassHeight()).thenReturn(3);
+        lenient().when(mockConfig.getTier3MastPositions()).thenReturn(List.of(new int[] {2, 0, 2}, new int[] {2, 0, -2}, new int[] {-2, 0, 2}, new int[] {-2, 0, -2}));
+        StructureTemplate template = StructureTemplate.compile(mockConfig, mockPlugin.getLogger());
+        lenient().when(mockConfig.getStructureTemplate()).thenReturn(template);
         
         lenient().when(mockMessages.degradationTier2Warn(anyInt())).thenReturn("§e⚠ Медное кольцо окисляется!");
         lenient().when(mockMessages.degradationTier2Fail()).thenReturn("§c⚠ Кольцо слишком окислено!");
@@ -113,6 +119,51 @@ public class DegradationManagerTest {
         }
     }
     
+    @Nested
+    @DisplayName("Copper Tracking Tests")
+    class CopperTrackingTests {
+        
+        @Test
+        @DisplayName("Should count the ring once and then downgrade on the change that crosses the minimum")
+        void testOnCopperChange_DowngradeOnCrossing() {
+            World mockWorld = mock(World.class);
+            Block copper = mock(Block.class);
+            when(copper.getType()).thenReturn(Material.COPPER_BLOCK);
+            when(mockWorld.getBlockAt(anyInt(), anyInt(), anyInt())).thenReturn(copper);
+            when(Bukkit.getOfflinePlayer(any(UUID.class))).thenReturn(mock(org.bukkit.OfflinePlayer.class));
+            
+            Ward ward = new Ward(UUID.randomUUID(), UUID.randomUUID(), "world", 0, 64, 0, 2, 10, 0, 0, 0);
+            StructureRecheckQueue mockQueue = mock(StructureRecheckQueue.class);
+            when(mockPlugin.getStructureRecheckQueue()).thenReturn(mockQueue);
+            when(mockQueue.applyTier(eq(ward), eq(1), anyString())).thenReturn(ward.withTier(1));
+            Location potLoc = new Location(mockWorld, 0, 64, 0);
+            
+            // 16 живых блоков, порог 9 - семь окислений ещё допустимы
+            for (int i = 0; i < 7; i++) {
+                Ward result = degradationManager.onCopperChange(ward, potLoc,
+                    Material.COPPER_BLOCK, Material.EXPOSED_COPPER, false);
+                assertSame(ward, result, "Ward should keep Tier 2 above the minimum");
+            }
+            verify(mockQueue, never()).applyTier(any(Ward.class), anyInt(), any());
+            
+            Ward result = degradationManager.onCopperChange(ward, potLoc,
+                Material.COPPER_BLOCK, Material.EXPOSED_COPPER, false);
+            
+            assertEquals(1, result.getTier(), "Ward should drop to Tier 1 below the minimum");
+            verify(mockQueue).applyTier(ward, 1, "§c⚠ Кольцо слишком окислено!");
+            verify(mockDatabase, never()).saveWard(any(Ward.class));
+            verify(mockWorld, times(16)).getBlockAt(anyInt(), anyInt(), anyInt());
+            verify(mockMessages).degradationTier2Warn(11);
+        }
+        
+        @Test
+        @DisplayName("Should ignore changes between non-alive materials")
+        void testAffectsAliveCopper() {
+            assertFalse(degradationManager.affectsAliveCopper(Material.STONE, Material.AIR));
+            assertTrue(degradationManager.affectsAliveCopper(Material.COPPER_BLOCK, Material.EXPOSED_COPPER));
+        }
+    }
+    
     @Nested
     @DisplayName("Tier 3 Degradation Tests")
     class Tier3DegradationTests {
@@ -171,6 +222,27 @@ public class DegradationManagerTest {
             assertSame(ward, result, "Should return same ward when world is null");
             verify(mockDatabase, never()).saveWard(any(Ward.class));
         }
+        
+        @Test
+        @DisplayName("Should defer due degradation when no players are nearby")
+        void testCheckTier3Degradation_DeferWithoutPlayers() {
+            World mockWorld = mock(World.class);
+            when(mockWorld.getPlayers()).thenReturn(new ArrayList<>());
+            when(Bukkit.getWorld("world")).thenReturn(mockWorld);
+            lenient().when(mockPlugin.getConfigManager().getTier3PauseDeferMinutes()).thenReturn(5);
+            
+            UUID wardId = UUID.randomUUID();
+            long now = System.currentTimeMillis();
+            Ward ward = new Ward(wardId, UUID.randomUUID(), "world", 0, 64, 0, 3, 10,
+                              0, now - 1000, 0);
+            
+            Ward result = degradationManager.checkTier3Degradation(ward);
+            
+            assertEquals(3, result.getTier(), "Deferred ward should keep Tier 3");
+            assertTrue(result.getNextDegradeTime() >= now + 5 * 60 * 1000L,
+                      "Degrade time should be pushed back by the deferral");
+            verify(mockDatabase).saveWard(result);
+        }
     }
     
     @Nested
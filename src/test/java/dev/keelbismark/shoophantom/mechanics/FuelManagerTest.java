@@ -316,4 +316,57 @@ public class FuelManagerTest {
             assertTrue(result.getFuel() == 0, "One fuel should be consumed to start burning");
         }
     }
+    
+    @Nested
+    @DisplayName("Offline Catch-up Tests")
+    class CatchUpTests {
+        
+        @Test
+        @DisplayName("Should burn membranes that expired while the ward was evicted")
+        void testCatchUp_PartialBank() {
+            long now = System.currentTimeMillis();
+            long hour = 60 * 60 * 1000L;
+            // Tier 1: 60 минут на мембрану, текущая догорела 2.5 часа назад
+            Ward ward = new Ward(UUID.randomUUID(), UUID.randomUUID(), "world", 0, 64, 0, 1, 10, now - hour * 5 / 2, 0, 0);
+            
+            Ward result = fuelManager.catchUpFuel(ward, 0);
+            
+            assertEquals(7, result.getFuel(), "3 membranes should have burned");
+            assertTrue(result.getBurnEndTime() > now, "Current membrane should still be burning");
+            assertTrue(result.getBurnEndTime() <= now + hour, "Current membrane should end within one cycle");
+            verify(mockDatabase, never()).saveWard(any(Ward.class));
+        }
+        
+        @Test
+        @DisplayName("Should empty the bank when evicted longer than the fuel lasts")
+        void testCatchUp_BankExhausted() {
+            long now = System.currentTimeMillis();
+            Ward ward = new Ward(UUID.randomUUID(), UUID.randomUUID(), "world", 0, 64, 0, 1, 2, now - 24 * 60 * 60 * 1000L, 0, 0);
+            
+            Ward result = fuelManager.catchUpFuel(ward, 0);
+            
+            assertEquals(0, result.getFuel(), "Bank should be empty");
+            assertFalse(result.isActive(), "Ward should be inactive");
+        }
+        
+        @Test
+        @DisplayName("Should not charge time before the catch-up start")
+        void testCatchUp_NotBefore() {
+            long now = System.currentTimeMillis();
+            Ward ward = new Ward(UUID.randomUUID(), UUID.randomUUID(), "world", 0, 64, 0, 1, 5, now - 24 * 60 * 60 * 1000L, 0, 0);
+            
+            Ward result = fuelManager.catchUpFuel(ward, now - 1000);
+            
+            assertEquals(4, result.getFuel(), "Only the membrane started at catch-up start should burn");
+        }
+        
+        @Test
+        @DisplayName("Should keep a ward that is still burning")
+        void testCatchUp_StillBurning() {
+            long now = System.currentTimeMillis();
+            Ward ward = new Ward(UUID.randomUUID(), UUID.randomUUID(), "world", 0, 64, 0, 1, 5, now + 60000, 0, 0);
+            
+            assertSame(ward, fuelManager.catchUpFuel(ward, 0), "Burning ward should be unchanged");
+        }
+    }
 }
@@ -0,0 +1,98 @@
+package dev.keelbismark.shoophantom.mechanics;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dev.keelbismark.shoophantom.ShooPhantom;
+import dev.keelbismark.shoophantom.config.ConfigManager;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("QualityController Tests")
+public class QualityControllerTest {
+
+    private QualityController controller;
+
+    @BeforeEach
+    void setUp() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("adaptive-quality.window-ticks", 20);
+        config.set("adaptive-quality.step-down-mspt", List.of(30.0, 40.0, 45.0));
+        config.set("adaptive-quality.recover-margin-mspt", 5.0);
+        config.set("adaptive-quality.recover-delay-ticks", 40);
+
+        ShooPhantom mockPlugin = mock(ShooPhantom.class);
+        when(mockPlugin.getConfig()).thenReturn(config);
+        when(mockPlugin.getLogger()).thenReturn(Logger.getLogger("QualityControllerTest"));
+        ConfigManager configManager = new ConfigManager(mockPlugin);
+        when(mockPlugin.getConfigManager()).thenReturn(configManager);
+
+        controller = new QualityController(mockPlugin);
+    }
+
+    private void ticks(int count, double mspt) {
+        for (int i = 0; i < count; i++) {
+            controller.record(mspt);
+        }
+    }
+
+    @Test
+    @DisplayName("Healthy server should keep full quality")
+    void testFullQuality() {
+        ticks(100, 20.0);
+
+        assertEquals(0, controller.getLevel());
+        assertEquals(1, controller.getPointStride());
+        assertEquals(3, controller.scaleCount(3));
+        assertEquals(1, controller.getRepelIntervalMultiplier());
+        assertTrue(controller.allowsCosmetics());
+    }
+
+    @Test
+    @DisplayName("Lag should drop straight to the matching level")
+    void testStepDown() {
+        ticks(20, 42.0);
+
+        assertEquals(2, controller.getLevel());
+        assertEquals(4, controller.getPointStride());
+        assertEquals(2, controller.getRepelIntervalMultiplier());
+
+        ticks(20, 48.0);
+        assertEquals(3, controller.getLevel());
+        assertFalse(controller.allowsCosmetics());
+    }
+
+    @Test
+    @DisplayName("Recovery should need the margin and the delay and go one level at a time")
+    void testRecovery() {
+        ticks(20, 42.0);
+        assertEquals(2, controller.getLevel());
+
+        ticks(40, 37.0); // Ниже порога, но в пределах запаса
+        assertEquals(2, controller.getLevel());
+
+        ticks(40, 20.0);
+        assertEquals(1, controller.getLevel());
+
+        ticks(40, 20.0);
+        assertEquals(0, controller.getLevel());
+    }
+
+    @Test
+    @DisplayName("A single slow tick should suppress cosmetics at any level")
+    void testSlowTick() {
+        ticks(19, 20.0);
+        controller.record(60.0);
+
+        assertFalse(controller.allowsCosmetics());
+
+        controller.record(20.0);
+        assertTrue(controller.allowsCosmetics());
+    }
+}
@@ -0,0 +1,77 @@
+package dev.keelbismark.shoophantom.mechanics;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dev.keelbismark.shoophantom.ShooPhantom;
+import dev.keelbismark.shoophantom.config.ConfigManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("StructureTemplate Tests")
+public class StructureTemplateTest {
+
+    private StructureTemplate compile(YamlConfiguration config) {
+        ShooPhantom mockPlugin = mock(ShooPhantom.class);
+        when(mockPlugin.getConfig()).thenReturn(config);
+        when(mockPlugin.getLogger()).thenReturn(Logger.getLogger("StructureTemplateTest"));
+        return new ConfigManager(mockPlugin).getStructureTemplate();
+    }
+
+    private StructureView view(Map<String, Material> blocks) {
+        return (dx, dy, dz) -> blocks.getOrDefault(dx + "," + dy + "," + dz, Material.AIR);
+    }
+
+    @Test
+    @DisplayName("Default config should compile to the 5x5 ring and four masts")
+    void testDefaultShape() {
+        StructureTemplate template = compile(new YamlConfiguration());
+
+        assertEquals(16, template.getRingSize());
+        assertEquals(4, template.getMastCount());
+        assertEquals(2, template.getReach());
+        assertArrayEquals(new int[] {2, 3, 2}, template.getMastTop(0));
+    }
+
+    @Test
+    @DisplayName("Ring size from config should change the ring and the reach")
+    void testRingSize() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("structure.tier2.ring-size", 7);
+        config.set("structure.tier2.ring-y-offset", -2);
+        config.set("structure.tier2.alive-materials", List.of("COPPER_BLOCK"));
+        StructureTemplate template = compile(config);
+
+        Map<String, Material> blocks = new HashMap<>();
+        blocks.put("3,-2,0", Material.COPPER_BLOCK);
+        blocks.put("2,-1,0", Material.COPPER_BLOCK); // Старое кольцо не считается
+
+        assertEquals(24, template.getRingSize());
+        assertEquals(3, template.getReach());
+        assertEquals(1, template.countAliveRing(view(blocks)));
+    }
+
+    @Test
+    @DisplayName("Custom Tier 1 pattern should match in every rotation only when rotations are enabled")
+    void testRotations() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("structure.tier1.pattern", List.of("1 0 0 AMETHYST_BLOCK", "0 1 0 LIGHTNING_ROD|END_ROD"));
+
+        Map<String, Material> blocks = new HashMap<>();
+        blocks.put("0,0,1", Material.AMETHYST_BLOCK); // Повёрнуто на 90°
+        blocks.put("0,1,0", Material.END_ROD);
+
+        assertFalse(compile(config).matchesTier1(view(blocks)));
+
+        config.set("structure.tier1.rotations", true);
+        assertTrue(compile(config).matchesTier1(view(blocks)));
+    }
+}
@@ -11,7 +11,7 @@ import org.junit.jupiter.api.DisplayName;
 import dev.keelbismark.shoophantom.ShooPhantom;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 /**
@@ -40,6 +40,12 @@ public class TierCalculatorTest {
         lenient().when(mockConfigManager.getTier3MastTop()).thenReturn(Material.END_ROD);
         lenient().when(mockConfigManager.getTier3RadiusMin()).thenReturn(64);
         lenient().when(mockConfigManager.getTier3RadiusMax()).thenReturn(128);
+        lenient().when(mockConfigManager.getTier2RingSize()).thenReturn(5);
+        lenient().when(mockConfigManager.getTier2RingYOffset()).thenReturn(-1);
+        lenient().when(mockConfigManager.getTier3MastGlassHeight()).thenReturn(3);
+        lenient().when(mockConfigManager.getTier3MastPositions()).thenReturn(java.util.List.of(new int[] {2, 0, 2}, new int[] {2, 0, -2}, new int[] {-2, 0, 2}, new int[] {-2, 0, -2}));
+        StructureTemplate template = StructureTemplate.compile(mockConfigManager, mockPlugin.getLogger());
+        lenient().when(mockConfigManager.getStructureTemplate()).thenReturn(template);
         
         tierCalculator = new TierCalculator(mockPlugin);
     }
@@ -58,51 +64,52 @@ public class TierCalculatorTest {
         assertEquals(0, tier, "Should return tier 0 for non-decorated pot center");
     }
     
+    /**
+     * Горшок в точке 0, 0, 0 мира, где все остальные блоки - воздух
+     */
+    private Location mockPot(World world) {
+        Block air = mock(Block.class);
+        lenient().when(air.getType()).thenReturn(Material.AIR);
+        lenient().when(world.getBlockAt(anyInt(), anyInt(), anyInt())).thenReturn(air);
+        
+        Location location = mock(Location.class);
+        lenient().when(location.getWorld()).thenReturn(world);
+        Block pot = placeBlock(world, 0, 0, 0, Material.DECORATED_POT);
+        lenient().when(location.getBlock()).thenReturn(pot);
+        return location;
+    }
+    
+    private Block placeBlock(World world, int x, int y, int z, Material material) {
+        Block block = mock(Block.class);
+        lenient().when(block.getType()).thenReturn(material);
+        lenient().when(world.getBlockAt(x, y, z)).thenReturn(block);
+        return block;
+    }
+    
+    private void placeTier1(World world) {
+        placeBlock(world, 0, 1, 0, Material.LIGHTNING_ROD);
+        placeBlock(world, 0, -1, 0, Material.CHISELED_TUFF_BRICKS);
+        for (int[] side : new int[][] {{1, 0}, {-1, 0}, {0, 1}, {0, -1}}) {
+            placeBlock(world, side[0], 0, side[1], Material.COPPER_GRATE);
+        }
+        for (int[] corner : new int[][] {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}}) {
+            placeBlock(world, corner[0], 0, corner[1], Material.AMETHYST_BLOCK);
+        }
+    }
+    
+    private void placeMast(World world, int x, int z) {
+        for (int y = 0; y <= 2; y++) {
+            placeBlock(world, x, y, z, Material.TINTED_GLASS);
+        }
+        placeBlock(world, x, 3, z, Material.END_ROD);
+    }
+    
     @Test
     @DisplayName("Should return 1 for complete Tier 1 structure")
     void testCalculateTier_Tier1Complete() {
-        Location location = mock(Location.class);
-        Block centerBlock = mock(Block.class);
-        
-        when(location.getBlock()).thenReturn(centerBlock);
-        when(centerBlock.getType()).thenReturn(Material.DECORATED_POT);
-        
-        Block above = mock(Block.class);
-        Block below = mock(Block.class);
-        Block side1 = mock(Block.class);
-        Block side2 = mock(Block.class);
-        Block side3 = mock(Block.class);
-        Block side4 = mock(Block.class);
-        Block corner1 = mock(Block.class);
-        Block corner2 = mock(Block.class);
-        Block corner3 = mock(Block.class);
-        Block corner4 = mock(Block.class);
-        
-        Location aboveLoc = mock(Location.class);
-        Location belowLoc = mock(Location.class);
-        Location side1Loc = mock(Location.class);
-        Location side2Loc = mock(Location.class);
-        Location side3Loc = mock(Location.class);
-        Location side4Loc = mock(Location.class);
-        Location corner1Loc = mock(Location.class);
-        Location corner2Loc = mock(Location.class);
-        Location corner3Loc = mock(Location.class);
-        Location corner4Loc = mock(Location.class);
-        
-        when(location.clone()).thenReturn(location);
-        when(location.add(anyDouble(), anyDouble(), anyDouble())).thenReturn(location);
-        when(location.getBlock()).thenReturn(centerBlock, above, below, side1, side2, side3, side4, corner1, corner2, corner3, corner4);
-        
-        lenient().when(above.getType()).thenReturn(Material.LIGHTNING_ROD);
-        lenient().when(below.getType()).thenReturn(Material.CHISELED_TUFF_BRICKS);
-        lenient().when(side1.getType()).thenReturn(Material.COPPER_GRATE);
-        lenient().when(side2.getType()).thenReturn(Material.COPPER_GRATE);
-        lenient().when(side3.getType()).thenReturn(Material.COPPER_GRATE);
-        lenient().when(side4.getType()).thenReturn(Material.COPPER_GRATE);
-        lenient().when(corner1.getType()).thenReturn(Material.AMETHYST_BLOCK);
-        lenient().when(corner2.getType()).thenReturn(Material.AMETHYST_BLOCK);
-        lenient().when(corner3.getType()).thenReturn(Material.AMETHYST_BLOCK);
-        lenient().when(corner4.getType()).thenReturn(Material.AMETHYST_BLOCK);
+        World world = mock(World.class);
+        Location location = mockPot(world);
+        placeTier1(world);
         
         int tier = tierCalculator.calculateTier(location);
         
@@ -112,65 +119,75 @@ public class TierCalculatorTest {
     @Test
     @DisplayName("Should count alive copper blocks correctly")
     void testCountAliveCopperBlocks() {
-        Location location = mock(Location.class);
-        Block mockBlock = mock(Block.class);
+        World world = mock(World.class);
+        Location location = mockPot(world);
+        assertEquals(0, tierCalculator.countAliveCopperBlocks(location), "No copper around the pot");
         
-        when(location.clone()).thenReturn(location);
-        lenient().when(location.add(anyDouble(), anyDouble(), anyDouble())).thenReturn(location);
-        when(location.getBlock()).thenReturn(mockBlock);
-        when(mockBlock.getType()).thenReturn(Material.STONE);
+        placeBlock(world, 2, -1, 0, Material.COPPER_BLOCK);
+        placeBlock(world, -2, -1, 1, Material.CUT_COPPER);
+        placeBlock(world, 0, -1, 0, Material.COPPER_BLOCK); // Внутри кольца - не считается
         
-        int count = tierCalculator.countAliveCopperBlocks(location);
-        
-        assertTrue(count >= 0, "Alive block count should be non-negative");
+        assertEquals(2, tierCalculator.countAliveCopperBlocks(location));
     }
     
     @Test
     @DisplayName("Should count alive masts correctly")
     void testCountAliveMasts() {
-        Location location = mock(Location.class);
-        Block mockBlock = mock(Block.class);
-        
-        when(location.clone()).thenReturn(location);
-        lenient().when(location.add(anyDouble(), anyDouble(), anyDouble())).thenReturn(location);
-        when(location.getBlock()).thenReturn(mockBlock);
-        when(mockBlock.getType()).thenReturn(Material.TINTED_GLASS, Material.TINTED_GLASS, Material.TINTED_GLASS, Material.END_ROD);
-        
-        int count = tierCalculator.countAliveMasts(location);
+        World world = mock(World.class);
+        Location location = mockPot(world);
+        placeMast(world, 2, 2);
+        placeMast(world, -2, -2);
+        placeBlock(world, 2, 0, -2, Material.TINTED_GLASS); // Недостроенная мачта
         
-        assertTrue(count >= 0 && count <= 4, "Mast count should be between 0 and 4");
+        assertEquals(2, tierCalculator.countAliveMasts(location));
     }
     
     @Test
     @DisplayName("Should calculate Tier 3 power correctly based on alive masts")
     void testCalculateTier3Power() {
-        Location location = mock(Location.class);
-        Block potBlock = mock(Block.class);
-        Block glassBlock = mock(Block.class);
-        Block topBlock = mock(Block.class);
-        
-        when(location.getBlock()).thenReturn(potBlock);
-        when(potBlock.getType()).thenReturn(Material.DECORATED_POT);
-        when(location.clone()).thenReturn(location);
-        
-        Location mast1Loc = mock(Location.class);
-        when(mast1Loc.getBlock()).thenReturn(glassBlock);
-        when(glassBlock.getType()).thenReturn(Material.TINTED_GLASS, Material.TINTED_GLASS, Material.TINTED_GLASS, Material.END_ROD);
+        World world = mock(World.class);
+        Location location = mockPot(world);
+        assertEquals(0.0, tierCalculator.calculateTier3Power(location), 1e-9);
         
-        int[][] mastPositions = {{2, 0, 2}, {2, 0, -2}, {-2, 0, 2}, {-2, 0, -2}};
-        int callCount = 0;
-        Location mockLoc = mock(Location.class);
-        Block mockBlock = mock(Block.class);
+        placeMast(world, 2, 2);
+        assertEquals(0.25, tierCalculator.calculateTier3Power(location), 1e-9);
         
-        when(location.add(anyDouble(), anyDouble(), anyDouble())).thenReturn(mockLoc);
-        when(mockLoc.getBlock()).thenReturn(mockBlock);
-        
-        lenient().when(mockBlock.getType()).thenReturn(Material.TINTED_GLASS);
-        
-        double power = tierCalculator.calculateTier3Power(location);
-        
-        assertTrue(power >= 0.0 && power <= 1.0, "Power should be between 0.0 and 1.0");
-        assertTrue(power % 0.25 < 0.01, "Power should be a multiple of 0.25");
+        placeMast(world, 2, -2);
+        placeMast(world, -2, 2);
+        placeMast(world, -2, -2);
+        assertEquals(1.0, tierCalculator.calculateTier3Power(location), 1e-9);
+    }
+    
+    @Test
+    @DisplayName("Should evaluate a complete structure from a block view without touching the world")
+    void testCalculateTier_StructureView() {
+        java.util.Map<String, Material> blocks = new java.util.HashMap<>();
+        blocks.put("0,0,0", Material.DECORATED_POT);
+        blocks.put("0,1,0", Material.LIGHTNING_ROD);
+        blocks.put("0,-1,0", Material.CHISELED_TUFF_BRICKS);
+        for (int[] side : new int[][] {{1, 0}, {-1, 0}, {0, 1}, {0, -1}}) {
+            blocks.put(side[0] + ",0," + side[1], Material.COPPER_GRATE);
+        }
+        for (int[] corner : new int[][] {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}}) {
+            blocks.put(corner[0] + ",0," + corner[1], Material.AMETHYST_BLOCK);
+        }
+        for (int x = -2; x <= 2; x++) {
+            for (int z = -2; z <= 2; z++) {
+                if (Math.abs(x) == 2 || Math.abs(z) == 2) {
+                    blocks.put(x + ",-1," + z, Material.COPPER_BLOCK);
+                }
+            }
+        }
+        for (int y = 0; y <= 2; y++) {
+            blocks.put("2," + y + ",2", Material.TINTED_GLASS);
+        }
+        blocks.put("2,3,2", Material.END_ROD);
+        
+        StructureView view = (dx, dy, dz) -> blocks.getOrDefault(dx + "," + dy + "," + dz, Material.AIR);
+        
+        assertEquals(3, tierCalculator.calculateTier(view), "One live mast over a full ring should be Tier 3");
+        assertEquals(16, tierCalculator.countAliveCopperBlocks(view));
+        assertEquals(1, tierCalculator.countAliveMasts(view));
     }
     
     @Test
@@ -0,0 +1,66 @@
+package dev.keelbismark.shoophantom.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("DueTimeQueue Tests")
+public class DueTimeQueueTest {
+
+    private DueTimeQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new DueTimeQueue();
+    }
+
+    @Test
+    @DisplayName("Only entries whose time has come should be polled, earliest first")
+    void testPollDue() {
+        UUID early = UUID.randomUUID();
+        UUID late = UUID.randomUUID();
+        UUID future = UUID.randomUUID();
+        queue.schedule(late, 200);
+        queue.schedule(future, 1000);
+        queue.schedule(early, 100);
+
+        assertEquals(List.of(early, late), queue.pollDue(500));
+        assertEquals(1, queue.size());
+        assertEquals(1000, queue.peekDueTime());
+        assertTrue(queue.pollDue(500).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Rescheduled and cancelled entries should not be polled at their old time")
+    void testRescheduleAndCancel() {
+        UUID moved = UUID.randomUUID();
+        UUID cancelled = UUID.randomUUID();
+        queue.schedule(moved, 100);
+        queue.schedule(cancelled, 100);
+
+        queue.schedule(moved, 300);
+        queue.cancel(cancelled);
+
+        assertTrue(queue.pollDue(200).isEmpty());
+        assertEquals(List.of(moved), queue.pollDue(300));
+        assertEquals(0, queue.size());
+        assertEquals(Long.MAX_VALUE, queue.peekDueTime());
+    }
+
+    @Test
+    @DisplayName("Frequent rescheduling should not grow the queue without bound")
+    void testCompaction() {
+        UUID id = UUID.randomUUID();
+        for (int i = 0; i < 10_000; i++) {
+            queue.schedule(id, i);
+        }
+
+        assertEquals(1, queue.size());
+        assertEquals(List.of(id), queue.pollDue(Long.MAX_VALUE));
+    }
+}